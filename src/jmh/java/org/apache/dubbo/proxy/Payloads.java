@@ -0,0 +1,113 @@
+package org.apache.dubbo.proxy;
+
+import org.apache.dubbo.proxy.entity.MethodConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p> Description:
+ * <p>  基准测试用的泛化调用请求体和返回值，small是单个字符串参数，
+ * <p>  medium是一个二十来个字段的dto，large是一千个dto组成的列表
+ */
+public class Payloads {
+
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String LARGE = "large";
+
+    private static final int LARGE_SIZE = 1000;
+
+    /**
+     * 泛化调用的请求体
+     */
+    public static MethodConfig request(String payload) {
+        MethodConfig methodConfig = new MethodConfig();
+        methodConfig.setMethodName("query");
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put("traceId", "5f3c2b1a9e8d7c6b");
+        methodConfig.setAttachments(attachments);
+        switch (payload) {
+            case SMALL:
+                methodConfig.setParamTypes(new String[]{"java.lang.String"});
+                methodConfig.setParamValues(new Object[]{"order-20261018-000001"});
+                break;
+            case MEDIUM:
+                methodConfig.setParamTypes(new String[]{"com.example.order.OrderDTO"});
+                methodConfig.setParamValues(new Object[]{order(1)});
+                break;
+            case LARGE:
+                methodConfig.setParamTypes(new String[]{"java.util.List", "java.lang.Boolean"});
+                methodConfig.setParamValues(new Object[]{orders(), Boolean.TRUE});
+                break;
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+        return methodConfig;
+    }
+
+    /**
+     * 泛化调用的返回值，和请求同样的规模
+     */
+    public static Object response(String payload) {
+        switch (payload) {
+            case SMALL:
+                return "order-20261018-000001";
+            case MEDIUM:
+                return order(1);
+            case LARGE:
+                return orders();
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+    }
+
+    private static List<Object> orders() {
+        List<Object> orders = new ArrayList<>(LARGE_SIZE);
+        for (int i = 0; i < LARGE_SIZE; i++) {
+            orders.add(order(i));
+        }
+        return orders;
+    }
+
+    /**
+     * 泛化调用的pojo都是map形式，带class字段
+     */
+    private static Map<String, Object> order(int id) {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("class", "com.example.order.OrderDTO");
+        order.put("id", 100000L + id);
+        order.put("orderNo", "order-20261018-" + id);
+        order.put("userId", 2000000L + id);
+        order.put("userName", "用户" + id);
+        order.put("status", "PAID");
+        order.put("amount", 12999);
+        order.put("discount", 1000);
+        order.put("freight", 0);
+        order.put("currency", "CNY");
+        order.put("createTime", 1792281600000L);
+        order.put("payTime", 1792281660000L);
+        order.put("remark", "请尽快发货，周末不在家请放快递柜");
+        order.put("province", "浙江省");
+        order.put("city", "杭州市");
+        order.put("district", "西湖区");
+        order.put("address", "文三路" + id + "号");
+        order.put("phone", "1380000" + String.format("%04d", id % 10000));
+        order.put("tags", new String[]{"vip", "first-order"});
+        List<Object> items = new ArrayList<>(2);
+        for (int i = 0; i < 2; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("class", "com.example.order.OrderItemDTO");
+            item.put("skuId", 30000L + i);
+            item.put("skuName", "商品" + i);
+            item.put("price", 6499);
+            item.put("quantity", 1);
+            items.add(item);
+        }
+        order.put("items", items);
+        return order;
+    }
+}
@@ -0,0 +1,120 @@
+package org.apache.dubbo.proxy.server;
+
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.proxy.Payloads;
+import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.entity.ServiceDefinition;
+import org.apache.dubbo.proxy.route.Route;
+import org.apache.dubbo.proxy.route.RouteTable;
+import org.apache.dubbo.proxy.service.AsyncCachedServicePool;
+import org.apache.dubbo.proxy.utils.AsyncJsonReader;
+import org.apache.dubbo.proxy.utils.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  请求解析：route只包含路由查找，parseParam是路由查找加从token流绑定MethodConfig，
+ * <p>  parseRawParams是generic=gson时绑定MethodConfig，参数不转换成Map，
+ * <p>  decodeAndParse再加上JsonBodyDecoder里按chunk喂给非阻塞parser的过程
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class ParseParamBenchmark {
+
+    private static final String URI = "/com.example.order.OrderService?group=order&version=1.0.0";
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    public String payload;
+
+    private byte[] body;
+    private ProxyRequest request;
+    private RouteTable routeTable;
+
+    @Setup
+    public void setup() throws IOException {
+        body = JsonUtils.writeValueAsBytes(Payloads.request(payload));
+        request = new ProxyRequest(URI, true, decode());
+        ServiceConfig serviceConfig = new ServiceConfig();
+        serviceConfig.setInterfaceName("com.example.order.OrderService");
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.setStrict(false);
+        Map<String, ServiceConfig> serviceMapping = new HashMap<>();
+        serviceMapping.put("com.example.order.OrderService", serviceConfig);
+        ApplicationConfig applicationConfig = new ApplicationConfig("dubbo-proxy-benchmark");
+        ConfigCenter configCenter = new ConfigCenter() {
+            @Override
+            public ProxyConfig getProxyConfig() {
+                return proxyConfig;
+            }
+
+            @Override
+            public ApplicationConfig getApplicationConfig() {
+                return applicationConfig;
+            }
+
+            @Override
+            public Map<String, ServiceConfig> getServiceMapping() {
+                return serviceMapping;
+            }
+        };
+        // 只创建ReferenceConfig，不会get
+        routeTable = new RouteTable(configCenter, new AsyncCachedServicePool(configCenter));
+    }
+
+    @Benchmark
+    public Route route() {
+        return routeTable.route(URI);
+    }
+
+    @Benchmark
+    public ServiceDefinition parseParam() {
+        return HttpProcessHandler.parseParam(request, routeTable.route(URI));
+    }
+
+    /**
+     * generic=gson时参数保留json文本，和parseParam对比Map转换的开销
+     */
+    @Benchmark
+    public MethodConfig parseRawParams() {
+        return JsonUtils.parseRawParams(request.getBody());
+    }
+
+    @Benchmark
+    public ServiceDefinition decodeAndParse() throws IOException {
+        return HttpProcessHandler.parseParam(new ProxyRequest(URI, true, decode()), routeTable.route(URI));
+    }
+
+    /**
+     * 和http codec一样按chunk切分body
+     */
+    private TokenBuffer decode() throws IOException {
+        AsyncJsonReader reader = new AsyncJsonReader();
+        ByteBuf buf = Unpooled.wrappedBuffer(body);
+        for (int index = 0; index < body.length; index += CHUNK_SIZE) {
+            reader.feed(buf.slice(index, Math.min(CHUNK_SIZE, body.length - index)));
+        }
+        return reader.finish();
+    }
+}
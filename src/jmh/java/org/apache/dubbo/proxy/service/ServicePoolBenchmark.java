@@ -0,0 +1,122 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.route.Route;
+import org.apache.dubbo.proxy.route.RouteTable;
+import org.apache.dubbo.rpc.service.GenericService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  AsyncCachedServicePool.getAsync的查找开销，主要是ServiceConfig作为key的hashCode和equals，
+ * <p>  mapped是mapping.services里的服务，经过路由直接拿缓存的GenericService，
+ * <p>  cached是动态服务，每次用新解析出来的相等实例查服务池。
+ * <p>  服务用直连url且check=false，不需要provider在线
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class ServicePoolBenchmark {
+
+    private AsyncCachedServicePool pool;
+    private RouteTable routeTable;
+    private Route mapped;
+    private ServiceConfig cachedRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        ServiceConfig mappedConfig = serviceConfig("com.example.order.OrderService");
+        ProxyConfig proxyConfig = new ProxyConfig();
+        proxyConfig.setConnectionTimeOut(5000L);
+        ApplicationConfig applicationConfig = new ApplicationConfig("dubbo-proxy-benchmark");
+        Map<String, ServiceConfig> serviceMapping = Collections.singletonMap(mappedConfig.getInterfaceName(), mappedConfig);
+        ConfigCenter configCenter = new ConfigCenter() {
+            @Override
+            public ProxyConfig getProxyConfig() {
+                return proxyConfig;
+            }
+
+            @Override
+            public ApplicationConfig getApplicationConfig() {
+                return applicationConfig;
+            }
+
+            @Override
+            public Map<String, ServiceConfig> getServiceMapping() {
+                return serviceMapping;
+            }
+        };
+        pool = new AsyncCachedServicePool(configCenter);
+        pool.init();
+        routeTable = new RouteTable(configCenter, pool);
+        mapped = routeTable.route(mappedConfig.getInterfaceName(), null, null);
+
+        // 先加载到缓存里，之后每次用新的相等实例查找
+        pool.getAsync(serviceConfig("com.example.user.UserService")).get(10, TimeUnit.SECONDS);
+        cachedRequest = serviceConfig("com.example.user.UserService");
+        mapped.service(pool).get(10, TimeUnit.SECONDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        routeTable.destroy();
+        pool.destroy();
+    }
+
+    @Benchmark
+    public int serviceConfigHashCode() {
+        return cachedRequest.hashCode();
+    }
+
+    @Benchmark
+    public CompletableFuture<GenericService> getAsyncMapped() {
+        return mapped.service(pool);
+    }
+
+    @Benchmark
+    public CompletableFuture<GenericService> getAsyncCached() {
+        return pool.getAsync(cachedRequest);
+    }
+
+    /**
+     * 所有字段都填上，hashCode要算全部字段
+     */
+    private static ServiceConfig serviceConfig(String interfaceName) {
+        ServiceConfig serviceConfig = new ServiceConfig();
+        serviceConfig.setInterfaceName(interfaceName);
+        serviceConfig.setGroup("order");
+        serviceConfig.setVersion("1.0.0");
+        serviceConfig.setTimeout(3000);
+        serviceConfig.setRetries(0);
+        serviceConfig.setTag("gray");
+        serviceConfig.setActives(0);
+        serviceConfig.setProtocol("dubbo");
+        serviceConfig.setCluster("failover");
+        serviceConfig.setOwner("order-team");
+        serviceConfig.setUrl("dubbo://127.0.0.1:20880");
+        serviceConfig.setLoadbalance("random");
+        serviceConfig.setConnections(1);
+        MethodPolicy policy = new MethodPolicy();
+        policy.setCoalesce(true);
+        serviceConfig.setPolicy(policy);
+        return serviceConfig;
+    }
+}
@@ -0,0 +1,76 @@
+package org.apache.dubbo.proxy.utils;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.dubbo.proxy.Payloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+
+/**
+ * <p> Description:
+ * <p>  HttpTools写响应，包括序列化、构造FullHttpResponse和写到EmbeddedChannel，
+ * <p>  响应在outbound最前面直接释放，不统计http编码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class HttpToolsBenchmark {
+
+    private static final String SIZE_KEY = "com.example.order.OrderService#query";
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    public String payload;
+
+    private Object response;
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+
+    @Setup
+    public void setup() {
+        response = Payloads.response(payload);
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        }, new ChannelInboundHandlerAdapter());
+        // 和HttpProcessHandler一样从pipeline末尾的ctx往外写
+        ctx = channel.pipeline().lastContext();
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void writeResponse() {
+        HttpTools.writeResponse(ctx, response, true, OK);
+    }
+
+    /**
+     * 按接口+方法估算响应大小预分配buffer
+     */
+    @Benchmark
+    public void writeResponseWithSizeKey() {
+        HttpTools.writeResponse(ctx, SIZE_KEY, response, true, OK);
+    }
+}
@@ -0,0 +1,70 @@
+package org.apache.dubbo.proxy.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.apache.dubbo.proxy.Payloads;
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  JsonUtils的解析和序列化，serializeToByteBuf对应HttpTools写响应时的路径
+ * <p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class JsonUtilsBenchmark {
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    public String payload;
+
+    private byte[] requestBytes;
+    private String requestString;
+    private Object response;
+
+    @Setup
+    public void setup() {
+        requestBytes = JsonUtils.writeValueAsBytes(Payloads.request(payload));
+        requestString = JsonUtils.writeValueAsString(Payloads.request(payload));
+        response = Payloads.response(payload);
+    }
+
+    @Benchmark
+    public MethodConfig parseBytes() {
+        return JsonUtils.parseObject(requestBytes, MethodConfig.class);
+    }
+
+    @Benchmark
+    public MethodConfig parseString() {
+        return JsonUtils.parseObject(requestString, MethodConfig.class);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() {
+        return JsonUtils.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public int serializeToByteBuf() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.ioBuffer();
+        try {
+            JsonUtils.writeValue(new ByteBufOutputStream(buf), response);
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p> Description:
+ * <p>  集群调用相关的策略通过ReferenceConfig的parameters传给FailoverClusterInvoker，
+ * <p>  服务级别的是普通参数，方法级别的是"方法名.参数名"，从url上用getMethodParameter读取。
+ * <p>  参数名不能带"."，否则会被当作方法级别的参数
+ */
+public final class ClusterParameters {
+
+    public static final String HEDGE_DELAY_KEY = "hedge-delay";
+    public static final String HEDGE_PERCENTILE_KEY = "hedge-percentile";
+    public static final String HEDGE_BUDGET_KEY = "hedge-budget";
+    public static final String RETRY_BUDGET_KEY = "retry-budget";
+    public static final String RETRY_BACKOFF_KEY = "retry-backoff";
+    public static final String RETRY_BACKOFF_MAX_KEY = "retry-backoff-max";
+
+    private ClusterParameters() {
+    }
+
+    /**
+     * 参数不同的服务要重新创建ReferenceConfig，RouteTable用返回值判断是否能沿用旧的引用
+     */
+    public static Map<String, String> of(ServiceConfig serviceConfig) {
+        Map<String, String> parameters = new HashMap<>();
+        MethodPolicy policy = serviceConfig.getPolicy();
+        if (policy != null) {
+            put(parameters, "", policy);
+            if (policy.getHedgeBudget() != null) {
+                parameters.put(HEDGE_BUDGET_KEY, String.valueOf(policy.getHedgeBudget()));
+            }
+            if (policy.getRetryBudget() != null) {
+                parameters.put(RETRY_BUDGET_KEY, String.valueOf(policy.getRetryBudget()));
+            }
+        }
+        if (serviceConfig.getMethods() != null) {
+            for (Map.Entry<String, MethodPolicy> method : serviceConfig.getMethods().entrySet()) {
+                if (method.getValue() != null) {
+                    put(parameters, method.getKey() + '.', method.getValue());
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static void put(Map<String, String> parameters, String prefix, MethodPolicy policy) {
+        if (policy.getHedgeDelay() != null) {
+            parameters.put(prefix + HEDGE_DELAY_KEY, String.valueOf(policy.getHedgeDelay()));
+        }
+        if (policy.getHedgePercentile() != null) {
+            parameters.put(prefix + HEDGE_PERCENTILE_KEY, String.valueOf(policy.getHedgePercentile()));
+        }
+        if (policy.getRetryBackoff() != null) {
+            parameters.put(prefix + RETRY_BACKOFF_KEY, String.valueOf(policy.getRetryBackoff()));
+        }
+        if (policy.getRetryBackoffMax() != null) {
+            parameters.put(prefix + RETRY_BACKOFF_MAX_KEY, String.valueOf(policy.getRetryBackoffMax()));
+        }
+    }
+}
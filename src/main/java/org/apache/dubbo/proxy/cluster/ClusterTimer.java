@@ -0,0 +1,26 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.apache.dubbo.common.timer.HashedWheelTimer;
+import org.apache.dubbo.common.timer.Timeout;
+import org.apache.dubbo.common.timer.TimerTask;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  集群调用共用的时间轮，对冲请求等延迟任务都在这里调度，不占用dubbo的回调线程。
+ * <p>  任务在时间轮线程上执行，只能做发起调用这样的轻量操作
+ */
+public final class ClusterTimer {
+
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer(
+            new NamedThreadFactory("cluster-timer", true), 5, TimeUnit.MILLISECONDS);
+
+    private ClusterTimer() {
+    }
+
+    public static Timeout schedule(TimerTask task, long delay, TimeUnit unit) {
+        return TIMER.newTimeout(task, delay, unit);
+    }
+}
@@ -0,0 +1,48 @@
+package org.apache.dubbo.proxy.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> Description:
+ * <p>  对冲请求的预算，令牌桶：每个请求存入ratio个令牌，每次对冲取出一个，
+ * <p>  对冲请求数长期不超过请求数的ratio，最多攒MAX_TOKENS个应对突发。
+ * <p>  令牌按千分之一计数，用CAS更新
+ */
+public final class HedgeBudget {
+
+    public static final double DEFAULT_PERCENT = 10;
+
+    private static final long UNIT = 1000;
+    private static final long MAX_TOKENS = 10 * UNIT;
+
+    private final long deposit;
+    private final AtomicLong tokens = new AtomicLong();
+
+    /**
+     * @param percent 对冲请求最多占请求数的百分比
+     */
+    public HedgeBudget(double percent) {
+        this.deposit = (long) (Math.min(Math.max(percent, 0), 100) * UNIT / 100);
+    }
+
+    public void onRequest() {
+        if (deposit == 0 || tokens.get() >= MAX_TOKENS) {
+            return;
+        }
+        long current;
+        do {
+            current = tokens.get();
+        } while (!tokens.compareAndSet(current, Math.min(current + deposit, MAX_TOKENS)));
+    }
+
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < UNIT) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - UNIT));
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.apache.dubbo.rpc.support.RpcUtils;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.apache.dubbo.rpc.cluster.Constants.DEFAULT_WEIGHT;
+import static org.apache.dubbo.rpc.cluster.Constants.WEIGHT_KEY;
+
+/**
+ * <p> Description:
+ * <p>  随机选两个provider，取负载低的一个(power of two choices)。负载由ProviderStats按代理观测到的
+ * <p>  响应时间和正在进行的调用数计算，再除以权重，慢的provider几秒内就会少分流量。
+ * <p>  统计由P2cStatsFilter记录，通过mapping.services.xxx.loadbalance=p2c启用
+ */
+public class P2cLoadBalance implements LoadBalance {
+
+    public static final String NAME = "p2c";
+
+    @Override
+    public <T> Invoker<T> select(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+        if (invokers == null || invokers.isEmpty()) {
+            return null;
+        }
+        int size = invokers.size();
+        if (size == 1) {
+            return invokers.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Invoker<T> a = invokers.get(first);
+        Invoker<T> b = invokers.get(second);
+        String methodName = RpcUtils.getMethodName(invocation);
+        return cost(a, methodName) <= cost(b, methodName) ? a : b;
+    }
+
+    private static double cost(Invoker<?> invoker, String methodName) {
+        int weight = invoker.getUrl().getMethodParameter(methodName, WEIGHT_KEY, DEFAULT_WEIGHT);
+        if (weight <= 0) {
+            return Double.MAX_VALUE;
+        }
+        return ProviderStats.of(invoker.getUrl()).cost() / weight;
+    }
+}
@@ -0,0 +1,40 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.support.RpcUtils;
+
+import static org.apache.dubbo.common.constants.CommonConstants.CONSUMER;
+import static org.apache.dubbo.common.constants.CommonConstants.LOADBALANCE_KEY;
+
+/**
+ * <p> Description:
+ * <p>  记录每个provider的响应时间和正在进行的调用数，只对loadbalance=p2c的服务生效。
+ * <p>  超时和网络错误也按实际耗时计入，出错的provider同样会少分流量
+ */
+@Activate(group = CONSUMER)
+public class P2cStatsFilter implements Filter {
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (!P2cLoadBalance.NAME.equals(invoker.getUrl().getMethodParameter(
+                RpcUtils.getMethodName(invocation), LOADBALANCE_KEY))) {
+            return invoker.invoke(invocation);
+        }
+        ProviderStats stats = ProviderStats.of(invoker.getUrl());
+        long start = System.nanoTime();
+        stats.start();
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RuntimeException e) {
+            stats.end(System.nanoTime() - start);
+            throw e;
+        }
+        return result.whenCompleteWithContext((r, t) -> stats.end(System.nanoTime() - start));
+    }
+}
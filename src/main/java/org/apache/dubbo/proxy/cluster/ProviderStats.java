@@ -0,0 +1,72 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.apache.dubbo.common.URL;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> Description:
+ * <p>  一个provider的响应时间和正在进行的调用数，供P2cLoadBalance计算负载。
+ * <p>  响应时间用peak EWMA：变慢时立即取新值，变快时按时间衰减，慢下来的provider马上少分流量；
+ * <p>  读取时也按距上次更新的时间衰减，没有流量的provider过一段时间会重新被选中试探。
+ * <p>  全部用原子变量，不加锁
+ */
+public final class ProviderStats {
+
+    private static final ConcurrentMap<String, ProviderStats> STATS = new ConcurrentHashMap<>();
+
+    private static final double DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    /**
+     * 还没有响应时间但已经有调用在进行的provider，先不分更多流量，避免新上线的provider被打满
+     */
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicLong ewma = new AtomicLong(Double.doubleToRawLongBits(0));
+    private volatile long stamp = System.nanoTime();
+
+    /**
+     * 同一个服务的同一个provider共用一个，provider下线后残留的很少，不清理
+     */
+    public static ProviderStats of(URL url) {
+        String key = url.toIdentityString();
+        ProviderStats stats = STATS.get(key);
+        return stats != null ? stats : STATS.computeIfAbsent(key, k -> new ProviderStats());
+    }
+
+    public void start() {
+        inflight.incrementAndGet();
+    }
+
+    public void end(long rttNanos) {
+        inflight.decrementAndGet();
+        long now = System.nanoTime();
+        long last = stamp;
+        stamp = now;
+        double w = Math.exp(-Math.max(now - last, 0) / DECAY_NANOS);
+        long current;
+        double updated;
+        do {
+            current = ewma.get();
+            double value = Double.longBitsToDouble(current);
+            updated = rttNanos > value ? rttNanos : value * w + rttNanos * (1 - w);
+        } while (!ewma.compareAndSet(current, Double.doubleToRawLongBits(updated)));
+    }
+
+    /**
+     * 负载 = 衰减后的响应时间 * (正在进行的调用数 + 1)
+     */
+    public double cost() {
+        int pending = Math.max(inflight.get(), 0);
+        double value = Double.longBitsToDouble(ewma.get());
+        if (value == 0) {
+            return pending == 0 ? 0 : PENALTY + pending;
+        }
+        double elapsed = Math.max(System.nanoTime() - stamp, 0);
+        return value * Math.exp(-elapsed / DECAY_NANOS) * (pending + 1);
+    }
+}
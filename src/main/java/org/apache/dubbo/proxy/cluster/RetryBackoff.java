@@ -0,0 +1,32 @@
+package org.apache.dubbo.proxy.cluster;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p> Description:
+ * <p>  重试的退避时间，指数增长并在[0, 上限)内随机(full jitter)，
+ * <p>  同一时刻失败的请求不会在同一时刻一起重试
+ */
+public final class RetryBackoff {
+
+    public static final long DEFAULT_BASE_MILLIS = 10;
+    public static final long DEFAULT_MAX_MILLIS = 500;
+
+    private RetryBackoff() {
+    }
+
+    /**
+     * @param retry 第几次重试，从1开始
+     * @return 退避时间(ms)，base为0时不退避
+     */
+    public static long delayMillis(int retry, long baseMillis, long maxMillis) {
+        if (baseMillis <= 0 || maxMillis <= 0) {
+            return 0;
+        }
+        int shift = Math.min(Math.max(retry - 1, 0), 30);
+        long exponential = baseMillis << shift;
+        // 溢出时按上限算
+        long cap = exponential <= 0 || exponential > maxMillis ? maxMillis : exponential;
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
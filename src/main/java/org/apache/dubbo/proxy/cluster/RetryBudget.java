@@ -0,0 +1,92 @@
+package org.apache.dubbo.proxy.cluster;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <p> Description:
+ * <p>  重试预算：最近WINDOW_SECONDS秒内的重试次数不超过成功请求数的percent%，另外每秒保底MIN_RETRIES_PER_SECOND次，
+ * <p>  provider集群整体变慢或出错时重试不会把请求放大retries倍，避免重试风暴。
+ * <p>  按秒分桶的滑动窗口，每个桶用LongAdder计数，高并发下计数不会集中在一个变量上
+ */
+public final class RetryBudget {
+
+    public static final double DEFAULT_PERCENT = 20;
+
+    private static final int WINDOW_SECONDS = 10;
+    private static final int MIN_RETRIES_PER_SECOND = 10;
+    private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double ratio;
+    private final Bucket[] buckets = new Bucket[WINDOW_SECONDS];
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    /**
+     * @param percent 重试次数最多占成功请求数的百分比
+     */
+    public RetryBudget(double percent) {
+        this(percent, System::nanoTime);
+    }
+
+    RetryBudget(double percent, LongSupplier nanoClock) {
+        this.ratio = Math.max(percent, 0) / 100;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public void onSuccess() {
+        current().successes.increment();
+    }
+
+    /**
+     * 判断和计数不是原子的，并发时可能略微超出预算
+     *
+     * @return 预算内返回true并计入一次重试
+     */
+    public boolean tryRetry() {
+        long now = epoch();
+        long successes = 0;
+        long retries = 0;
+        for (Bucket bucket : buckets) {
+            if (now - bucket.epoch < WINDOW_SECONDS) {
+                successes += bucket.successes.sum();
+                retries += bucket.retries.sum();
+            }
+        }
+        if (retries >= successes * ratio + MIN_RETRIES_PER_SECOND * WINDOW_SECONDS) {
+            return false;
+        }
+        current().retries.increment();
+        return true;
+    }
+
+    private Bucket current() {
+        long epoch = epoch();
+        Bucket bucket = buckets[(int) (epoch % buckets.length)];
+        if (bucket.epoch != epoch) {
+            synchronized (bucket) {
+                if (bucket.epoch != epoch) {
+                    bucket.successes.reset();
+                    bucket.retries.reset();
+                    bucket.epoch = epoch;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private long epoch() {
+        return (nanoClock.getAsLong() - origin) / BUCKET_NANOS;
+    }
+
+    private static final class Bucket {
+        volatile long epoch = -1;
+        final LongAdder successes = new LongAdder();
+        final LongAdder retries = new LongAdder();
+    }
+}
@@ -0,0 +1,98 @@
+package org.apache.dubbo.proxy.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p> Description:
+ * <p>  配置中心公共部分：配置快照、监听通知以及从Binder绑定配置
+ * <p>
+ */
+@Slf4j
+public abstract class AbstractConfigCenter implements ConfigCenter {
+
+    protected static final String MAPPING_PREFIX = "mapping.services";
+    protected static final String PROXY_PREFIX = "proxy";
+    protected static final String APP_PREFIX = "application";
+
+    private volatile ApplicationConfig applicationConfig;
+    private volatile Map<String, ServiceConfig> serviceMapping;
+    private volatile ProxyConfig proxyConfig;
+    private final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public ProxyConfig getProxyConfig() {
+        return proxyConfig;
+    }
+
+    @Override
+    public ApplicationConfig getApplicationConfig() {
+        return applicationConfig;
+    }
+
+    @Override
+    public Map<String, ServiceConfig> getServiceMapping() {
+        return serviceMapping;
+    }
+
+    @Override
+    public void addListener(ConfigListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 启动时加载全部配置，不通知监听方
+     */
+    protected void load(Binder binder) {
+        this.applicationConfig = bindApplicationConfig(binder);
+        this.serviceMapping = bindServiceMapping(binder);
+        this.proxyConfig = bindProxyConfig(binder);
+    }
+
+    /**
+     * 替换proxy和mapping.services快照并通知监听方，在调用方线程中回调
+     */
+    protected synchronized void publish(ProxyConfig proxyConfig, Map<String, ServiceConfig> serviceMapping) {
+        this.serviceMapping = serviceMapping;
+        this.proxyConfig = proxyConfig;
+        for (ConfigListener listener : listeners) {
+            try {
+                listener.onChange(proxyConfig, serviceMapping);
+            } catch (RuntimeException e) {
+                log.error("config listener {} failed", listener, e);
+            }
+        }
+    }
+
+    protected static ApplicationConfig bindApplicationConfig(Binder binder) {
+        return binder.bind(APP_PREFIX, Bindable.of(ApplicationConfig.class))
+                .get();
+    }
+
+    protected static Map<String, ServiceConfig> bindServiceMapping(Binder binder) {
+        Map<String, ServiceConfig> serviceCoordinatorMap =
+                binder.bind(MAPPING_PREFIX, Bindable.mapOf(String.class, ServiceConfig.class))
+                        .get();
+        for (ServiceConfig serviceConfig : serviceCoordinatorMap.values()) {
+            if (serviceConfig.getMethods() != null) {
+                for (MethodPolicy methodPolicy : serviceConfig.getMethods().values()) {
+                    methodPolicy.inherit(serviceConfig.getPolicy());
+                }
+            }
+        }
+        return serviceCoordinatorMap;
+    }
+
+    protected static ProxyConfig bindProxyConfig(Binder binder) {
+        return binder.bind(PROXY_PREFIX, Bindable.of(ProxyConfig.class))
+                .get();
+    }
+}
@@ -31,4 +31,11 @@ public interface ConfigCenter {
      * @return
      */
     Map<String, ServiceConfig> getServiceMapping();
+
+    /**
+     * 注册配置变更监听，不支持动态变更的实现可以忽略
+     * @param listener
+     */
+    default void addListener(ConfigListener listener) {
+    }
 }
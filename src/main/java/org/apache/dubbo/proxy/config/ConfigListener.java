@@ -0,0 +1,20 @@
+package org.apache.dubbo.proxy.config;
+
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+
+import java.util.Map;
+
+/**
+ * <p> Description:
+ * <p>  配置变更监听，每次回调的都是新的完整快照，监听方不能修改
+ * <p>
+ */
+public interface ConfigListener {
+
+    /**
+     * 配置发生了变化
+     * @param proxyConfig 新的代理配置
+     * @param serviceMapping 新的服务映射
+     */
+    void onChange(ProxyConfig proxyConfig, Map<String, ServiceConfig> serviceMapping);
+}
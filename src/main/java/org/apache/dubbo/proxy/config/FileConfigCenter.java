@@ -0,0 +1,261 @@
+package org.apache.dubbo.proxy.config;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.proxy.entity.CircuitBreakerConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.utils.Constants;
+import org.springframework.beans.BeansException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  基于本地文件(properties/yml)的配置中心，配置了proxy.configFile时代替SpringBootConfigCenter。
+ * <p>  文件中的配置覆盖spring environment中的同名配置，文件变化后防抖、校验，通过后发布新的快照，
+ * <p>  校验失败保留当前配置。监听和重新加载都在后台线程中，不占用请求线程。
+ * <p>  application.*只在启动时读取，修改需要重启。
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "proxy", name = "configFile")
+public class FileConfigCenter extends AbstractConfigCenter implements ApplicationContextAware {
+
+    private static final long DEFAULT_DEBOUNCE = 500;
+
+    private Environment environment;
+    private Path file;
+    private long debounce;
+    private byte[] content;
+    private WatchService watchService;
+    private Thread watcher;
+    private ScheduledExecutorService reloadExecutor;
+    private ScheduledFuture<?> pending;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.environment = applicationContext.getEnvironment();
+        ProxyConfig base = bindProxyConfig(Binder.get(environment));
+        this.file = Paths.get(base.getConfigFile()).toAbsolutePath();
+        this.debounce = base.getConfigFileDebounce() == null ? DEFAULT_DEBOUNCE : base.getConfigFileDebounce();
+        try {
+            this.content = Files.readAllBytes(file);
+            Binder binder = binder(content);
+            load(binder);
+            validate(getServiceMapping());
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("load config file " + file + " failed", e);
+        }
+        log.info("config loaded from {}", file);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("config-file-reload", true));
+        watchService = file.getFileSystem().newWatchService();
+        // 监听目录而不是文件：配置下发一般是写临时文件后rename，或者替换软链接(k8s configmap)
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        watcher = new Thread(this::watch, "config-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        watchService.close();
+        reloadExecutor.shutdownNow();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // OVERFLOW时不知道具体哪个文件变化了，也重新加载，内容没变的话reload会跳过
+                    changed = true;
+                }
+                key.reset();
+                if (changed) {
+                    schedule();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.info("config file watcher stopped");
+        }
+    }
+
+    /**
+     * 防抖，debounce时间内的多次变化只加载一次
+     */
+    private synchronized void schedule() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = reloadExecutor.schedule(this::reload, debounce, TimeUnit.MILLISECONDS);
+    }
+
+    private void reload() {
+        byte[] newContent;
+        try {
+            newContent = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            log.warn("config file {} not found, keep current config", file);
+            return;
+        } catch (IOException e) {
+            log.error("read config file {} failed, keep current config", file, e);
+            return;
+        }
+        if (Arrays.equals(content, newContent)) {
+            return;
+        }
+        try {
+            Binder binder = binder(newContent);
+            Map<String, ServiceConfig> serviceMapping = bindServiceMapping(binder);
+            ProxyConfig proxyConfig = bindProxyConfig(binder);
+            validate(serviceMapping);
+            warnRestartRequired(getProxyConfig(), proxyConfig);
+            content = newContent;
+            publish(proxyConfig, serviceMapping);
+            log.info("config reloaded from {}, {} services", file, serviceMapping.size());
+        } catch (RuntimeException e) {
+            log.error("invalid config file {}, keep current config", file, e);
+        }
+    }
+
+    /**
+     * 文件中的配置在前，environment中的配置在后，同名的以文件为准
+     */
+    private Binder binder(byte[] content) {
+        String name = "configFile [" + file + "]";
+        String fileName = file.getFileName().toString();
+        PropertySourceLoader loader = fileName.endsWith(".yml") || fileName.endsWith(".yaml")
+                ? new YamlPropertySourceLoader() : new PropertiesPropertySourceLoader();
+        List<PropertySource<?>> fileSources;
+        try {
+            fileSources = loader.load(name, new ByteArrayResource(content, name));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("parse " + name + " failed", e);
+        }
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        for (PropertySource<?> fileSource : fileSources) {
+            ConfigurationPropertySources.from(fileSource).forEach(sources::add);
+        }
+        ConfigurationPropertySources.get(environment).forEach(sources::add);
+        return new Binder(sources);
+    }
+
+    private static void validate(Map<String, ServiceConfig> serviceMapping) {
+        for (Map.Entry<String, ServiceConfig> entry : serviceMapping.entrySet()) {
+            ServiceConfig serviceConfig = entry.getValue();
+            if (StringUtils.isEmpty(serviceConfig.getInterfaceName())) {
+                throw new IllegalArgumentException("service [" + entry.getKey() + "] interfaceName is required");
+            }
+            if (isNegative(serviceConfig.getTimeout()) || isNegative(serviceConfig.getRetries())) {
+                throw new IllegalArgumentException("service [" + entry.getKey() + "] timeout and retries must not be negative");
+            }
+            if (serviceConfig.getGeneric() != null && !"true".equals(serviceConfig.getGeneric())
+                    && !"false".equals(serviceConfig.getGeneric())
+                    && !Constants.GENERIC_GSON.equals(serviceConfig.getGeneric())) {
+                throw new IllegalArgumentException("service [" + entry.getKey() + "] generic must be true, false or gson");
+            }
+            validate(entry.getKey(), serviceConfig.getPolicy());
+            if (serviceConfig.getMethods() != null) {
+                for (Map.Entry<String, MethodPolicy> method : serviceConfig.getMethods().entrySet()) {
+                    validate(entry.getKey() + "." + method.getKey(), method.getValue());
+                }
+            }
+        }
+    }
+
+    private static void validate(String name, MethodPolicy policy) {
+        if (policy == null) {
+            return;
+        }
+        if (isNegative(policy.getCacheTtl()) || isNegative(policy.getCacheSize())
+                || isNegative(policy.getRateLimit()) || isNegative(policy.getRateBurst())
+                || isNegative(policy.getHedgeDelay()) || isNegative(policy.getRetryBudget())
+                || isNegative(policy.getRetryBackoff()) || isNegative(policy.getRetryBackoffMax())) {
+            throw new IllegalArgumentException("policy of [" + name + "] must not be negative");
+        }
+        CircuitBreakerConfig circuitBreaker = policy.getCircuitBreaker();
+        if (circuitBreaker != null && (isNotPercent(circuitBreaker.getFailureRateThreshold())
+                || isNotPercent(circuitBreaker.getSlowCallRateThreshold()))) {
+            throw new IllegalArgumentException("circuitBreaker threshold of [" + name + "] must be in 0-100");
+        }
+        if (isNotPercent(policy.getHedgePercentile()) || isNotPercent(policy.getHedgeBudget())) {
+            throw new IllegalArgumentException("hedgePercentile and hedgeBudget of [" + name + "] must be in 0-100");
+        }
+    }
+
+    private static boolean isNegative(Number number) {
+        return number != null && number.doubleValue() < 0;
+    }
+
+    private static boolean isNotPercent(Number number) {
+        return number != null && (number.doubleValue() < 0 || number.doubleValue() > 100);
+    }
+
+    /**
+     * 监听端口、线程数等只在启动时生效，变化了提示需要重启
+     */
+    private static void warnRestartRequired(ProxyConfig current, ProxyConfig next) {
+        if (!Objects.equals(current.getPort(), next.getPort())
+                || !Objects.equals(current.getBind(), next.getBind())
+                || !Objects.equals(current.getTransport(), next.getTransport())
+                || !Objects.equals(current.getAcceptors(), next.getAcceptors())
+                || !Objects.equals(current.getBacklog(), next.getBacklog())
+                || !Objects.equals(current.getWorkerThreads(), next.getWorkerThreads())
+                || !Objects.equals(current.getMaxContentLength(), next.getMaxContentLength())
+                || !Objects.equals(current.getHttp2(), next.getHttp2())
+                || !Objects.equals(current.getHttp2MaxConcurrentStreams(), next.getHttp2MaxConcurrentStreams())
+                || !Objects.equals(current.getWireLog(), next.getWireLog())
+                || !Objects.equals(current.getAccessLog(), next.getAccessLog())
+                || !Objects.equals(current.getAccessLogSampleRate(), next.getAccessLogSampleRate())
+                || !Objects.equals(current.getAccessLogSlowThreshold(), next.getAccessLogSlowThreshold())
+                || !Objects.equals(current.getAccessLogMaxFieldLength(), next.getAccessLogMaxFieldLength())
+                || !Objects.equals(current.getAccessLogQueueSize(), next.getAccessLogQueueSize())) {
+            log.warn("server options in config file changed, restart to take effect");
+        }
+    }
+}
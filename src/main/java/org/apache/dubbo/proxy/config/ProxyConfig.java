@@ -1,6 +1,7 @@
 package org.apache.dubbo.proxy.config;
 
 import lombok.Data;
+import org.apache.dubbo.config.MetadataReportConfig;
 
 /**
  * <p> Description:
@@ -21,4 +22,144 @@ public class ProxyConfig {
      * 链接上游服务超时时间
      */
     private Long connectionTimeOut;
+
+    /**
+     * 网络传输实现：nio、epoll、auto（epoll可用时使用epoll，否则退化为nio）
+     */
+    private String transport;
+
+    /**
+     * acceptor数量，epoll模式下大于1时通过SO_REUSEPORT绑定多个监听channel，由内核分发连接
+     */
+    private Integer acceptors;
+
+    /**
+     * 监听socket的SO_BACKLOG
+     */
+    private Integer backlog;
+
+    /**
+     * worker线程数，默认cpu核数*2
+     */
+    private Integer workerThreads;
+
+    /**
+     * 请求body最大字节数，超过返回413
+     */
+    private Long maxContentLength;
+
+    /**
+     * 是否开启h2c（http2明文，支持prior knowledge和Upgrade: h2c）
+     */
+    private Boolean http2;
+
+    /**
+     * http2每个连接最大并发stream数
+     */
+    private Integer http2MaxConcurrentStreams;
+
+    /**
+     * 批量调用最多包含的调用数
+     */
+    private Integer batchMaxSize;
+
+    /**
+     * 批量调用整体超时时间(ms)
+     */
+    private Long batchTimeout;
+
+    /**
+     * prometheus指标的路径，不配置则不暴露
+     */
+    private String metricsPath;
+
+    /**
+     * 是否在pipeline中加LoggingHandler打印网络事件，只用于排查问题
+     */
+    private Boolean wireLog;
+
+    /**
+     * 是否开启访问日志
+     */
+    private Boolean accessLog;
+
+    /**
+     * 成功请求的访问日志采样率，0-1，失败和慢请求总是记录
+     */
+    private Double accessLogSampleRate;
+
+    /**
+     * 慢请求阈值(ms)，超过的请求总是记录
+     */
+    private Long accessLogSlowThreshold;
+
+    /**
+     * 参数、错误信息等字段记录的最大长度，超过截断
+     */
+    private Integer accessLogMaxFieldLength;
+
+    /**
+     * 访问日志队列长度，后台线程来不及写时丢弃
+     */
+    private Integer accessLogQueueSize;
+
+    /**
+     * 创建动态服务(不在mapping.services中)引用的线程数
+     */
+    private Integer serviceLoadThreads;
+
+    /**
+     * 同时创建中的动态服务最大数量，超过返回503
+     */
+    private Integer serviceLoadMaxPending;
+
+    /**
+     * 动态服务创建失败后，这段时间(ms)内的请求直接失败，不再重复创建
+     */
+    private Long serviceLoadFailureTtl;
+
+    /**
+     * 动态服务引用的最大缓存数量
+     */
+    private Integer serviceCacheSize;
+
+    /**
+     * 动态服务引用多久(s)没有访问后淘汰
+     */
+    private Long serviceCacheExpireAfterAccess;
+
+    /**
+     * 元数据中心，请求没有填写paramTypes时按方法名和参数个数查找，支持zookeeper://和file://
+     */
+    private MetadataReportConfig metadataReport;
+
+    /**
+     * 本地配置文件(properties/yml)，配置后监听文件变化动态更新proxy和mapping.services
+     */
+    private String configFile;
+
+    /**
+     * 配置文件变化的防抖时间(ms)
+     */
+    private Long configFileDebounce;
+
+    /**
+     * 启动时是否预热mapping.services中的服务，预热到warmupReadyRatio后再监听端口，就绪前请求返回503
+     */
+    private Boolean warmup;
+
+    /**
+     * 预热的并行数
+     */
+    private Integer warmupParallelism;
+
+    /**
+     * 预热最多等待的时间(ms)，超过后监听端口，后台继续预热，达到warmupReadyRatio前请求返回503
+     */
+    private Long warmupTimeout;
+
+    /**
+     * 预热成功的服务达到这个比例(0-1)就绪，剩下的在后台继续预热
+     */
+    private Double warmupReadyRatio;
 }
@@ -0,0 +1,24 @@
+package org.apache.dubbo.proxy.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p> Description:
+ * <p>  批量调用中的一个调用
+ * <p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItem {
+    private String interfaceName;
+    private String group;
+    private String version;
+    private MethodConfig methodConfig;
+    /**
+     * 单个调用的超时时间(ms)，不填使用整个批量的超时时间
+     */
+    private Long timeout;
+}
@@ -0,0 +1,45 @@
+package org.apache.dubbo.proxy.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p> Description:
+ * <p>  熔断配置，统计窗口内错误率或慢调用比例超过阈值时熔断，熔断期间直接失败，
+ * <p>  等待waitDuration后进入半开状态，放行halfOpenCalls个请求探测，全部成功则恢复
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CircuitBreakerConfig {
+    private Boolean enabled;
+    /**
+     * 错误率阈值(%)，超时、网络错误算错误，业务异常不算
+     */
+    private Integer failureRateThreshold;
+    /**
+     * 慢调用比例阈值(%)
+     */
+    private Integer slowCallRateThreshold;
+    /**
+     * 超过这个时间(ms)算慢调用
+     */
+    private Long slowCallDuration;
+    /**
+     * 统计窗口内调用数达到这个值才计算错误率
+     */
+    private Integer minimumCalls;
+    /**
+     * 统计窗口(s)
+     */
+    private Integer window;
+    /**
+     * 熔断后等待多久(ms)进入半开状态
+     */
+    private Long waitDuration;
+    /**
+     * 半开状态放行的探测请求数
+     */
+    private Integer halfOpenCalls;
+}
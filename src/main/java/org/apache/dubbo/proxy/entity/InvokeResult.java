@@ -0,0 +1,19 @@
+package org.apache.dubbo.proxy.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p> Description:
+ * <p>  一个调用的结果，批量调用的每一项和结构化的错误响应使用，code见{@link org.apache.dubbo.proxy.utils.ResultCode}
+ * <p>
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InvokeResult {
+    private int code;
+    private Object result;
+    private String error;
+}
@@ -0,0 +1,108 @@
+package org.apache.dubbo.proxy.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p> Description:
+ * <p>  调用策略，可以配置在服务级别(mapping.services.xxx.policy)，
+ * <p>  也可以配置在方法级别(mapping.services.xxx.methods.方法名)，方法级别没配置的项继承服务级别
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MethodPolicy {
+    /**
+     * 相同的并发请求合并成一次上游调用，只能用于幂等方法
+     */
+    private Boolean coalesce;
+
+    /**
+     * 响应缓存时间(ms)，大于0时缓存序列化好的响应，只能用于幂等方法
+     */
+    private Long cacheTtl;
+
+    /**
+     * 响应缓存最大条数
+     */
+    private Long cacheSize;
+
+    /**
+     * 限流，每秒允许的请求数，服务级别的配置限制整个接口，方法级别的配置限制单个方法，不继承
+     */
+    private Double rateLimit;
+
+    /**
+     * 限流允许的突发请求数，默认为一秒的请求数
+     */
+    private Integer rateBurst;
+
+    /**
+     * 熔断
+     */
+    private CircuitBreakerConfig circuitBreaker;
+
+    /**
+     * 对冲请求：第一次调用超过这么久(ms)没有返回时向另一个provider再发一次，先返回的结果生效，只能用于幂等方法
+     */
+    private Long hedgeDelay;
+
+    /**
+     * 对冲请求的延迟取该方法观测到的响应时间百分位，例如95，样本不够时使用hedgeDelay
+     */
+    private Double hedgePercentile;
+
+    /**
+     * 对冲请求最多占请求数的百分比，默认10，只在服务级别(policy)生效
+     */
+    private Double hedgeBudget;
+
+    /**
+     * 重试预算，最近10秒的重试次数最多占成功请求数的百分比，默认20，另外每秒保底10次，只在服务级别(policy)生效
+     */
+    private Double retryBudget;
+
+    /**
+     * 重试退避的初始时间(ms)，之后每次翻倍，实际等待在0到该值之间随机，默认10，0表示立即重试
+     */
+    private Long retryBackoff;
+
+    /**
+     * 重试退避的最长时间(ms)，默认500
+     */
+    private Long retryBackoffMax;
+
+    /**
+     * 没配置的项使用服务级别的配置，限流配置除外
+     */
+    public void inherit(MethodPolicy parent) {
+        if (parent == null) {
+            return;
+        }
+        if (coalesce == null) {
+            coalesce = parent.coalesce;
+        }
+        if (cacheTtl == null) {
+            cacheTtl = parent.cacheTtl;
+        }
+        if (cacheSize == null) {
+            cacheSize = parent.cacheSize;
+        }
+        if (circuitBreaker == null) {
+            circuitBreaker = parent.circuitBreaker;
+        }
+        if (hedgeDelay == null) {
+            hedgeDelay = parent.hedgeDelay;
+        }
+        if (hedgePercentile == null) {
+            hedgePercentile = parent.hedgePercentile;
+        }
+        if (retryBackoff == null) {
+            retryBackoff = parent.retryBackoff;
+        }
+        if (retryBackoffMax == null) {
+            retryBackoffMax = parent.retryBackoffMax;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 /**
  * <p> Description:
  * <p>
@@ -27,4 +29,31 @@ public class ServiceConfig {
     private String url;
     private String loadbalance;
     private Integer connections;
+    /**
+     * 泛化调用方式：true(默认，参数转换成Map，由provider转换成POJO)；
+     * gson(参数以原始json文本透传，provider用gson直接转换成参数类型，必须填写paramTypes或配置元数据中心)；
+     * false(接口类在代理的classpath上时类型化调用，代理直接把json绑定成参数类型，只对mapping.services生效)
+     */
+    private String generic;
+    /**
+     * 服务级别的调用策略
+     */
+    private MethodPolicy policy;
+    /**
+     * 方法级别的调用策略，key为方法名
+     */
+    private Map<String, MethodPolicy> methods;
+
+    /**
+     * 方法的调用策略，方法没有单独配置时使用服务级别的策略，都没配置返回null
+     */
+    public MethodPolicy policyOf(String methodName) {
+        if (methods != null) {
+            MethodPolicy methodPolicy = methods.get(methodName);
+            if (methodPolicy != null) {
+                return methodPolicy;
+            }
+        }
+        return policy;
+    }
 }
@@ -1,9 +1,16 @@
 package org.apache.dubbo.proxy.entity;
 
 import lombok.Data;
+import lombok.ToString;
+import org.apache.dubbo.proxy.route.Route;
 
 @Data
+@ToString(exclude = "route")
 public class ServiceDefinition {
     private ServiceConfig serviceConfig;
     private MethodConfig methodConfig;
+    /**
+     * 请求对应的路由
+     */
+    private Route route;
 }
@@ -0,0 +1,179 @@
+package org.apache.dubbo.proxy.log;
+
+import io.netty.util.internal.PlatformDependent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.entity.ServiceDefinition;
+import org.apache.dubbo.proxy.utils.ResultCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p> Description:
+ * <p>  访问日志，调用线程只做采样判断和入队(有界无锁队列，满了直接丢弃)，
+ * <p>  参数格式化和appender的io都在后台线程，不影响请求处理
+ * <p>
+ */
+@Slf4j
+@Component
+public class AccessLog {
+
+    private static final Logger ACCESS_LOGGER = LoggerFactory.getLogger("dubbo.proxy.access");
+
+    private static final double DEFAULT_SAMPLE_RATE = 0.01;
+    private static final long DEFAULT_SLOW_THRESHOLD = 1000;
+    private static final int DEFAULT_MAX_FIELD_LENGTH = 256;
+    private static final int DEFAULT_QUEUE_SIZE = 65536;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ConfigCenter configCenter;
+    private final LongAdder dropped = new LongAdder();
+
+    private boolean enabled;
+    private double sampleRate;
+    private long slowThresholdNanos;
+    private int maxFieldLength;
+    private Queue<Entry> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public AccessLog(ConfigCenter configCenter) {
+        this.configCenter = configCenter;
+    }
+
+    @PostConstruct
+    public void init() {
+        ProxyConfig proxyConfig = configCenter.getProxyConfig();
+        enabled = !Boolean.FALSE.equals(proxyConfig.getAccessLog());
+        if (!enabled) {
+            return;
+        }
+        sampleRate = proxyConfig.getAccessLogSampleRate() == null ? DEFAULT_SAMPLE_RATE : proxyConfig.getAccessLogSampleRate();
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(proxyConfig.getAccessLogSlowThreshold() == null
+                ? DEFAULT_SLOW_THRESHOLD : proxyConfig.getAccessLogSlowThreshold());
+        maxFieldLength = proxyConfig.getAccessLogMaxFieldLength() == null
+                ? DEFAULT_MAX_FIELD_LENGTH : proxyConfig.getAccessLogMaxFieldLength();
+        queue = PlatformDependent.newFixedMpscQueue(proxyConfig.getAccessLogQueueSize() == null
+                ? DEFAULT_QUEUE_SIZE : proxyConfig.getAccessLogQueueSize());
+        running = true;
+        writer = new Thread(this::drain, "dubbo-proxy-access-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 失败和慢调用总是记录，成功的调用按采样率记录
+     */
+    public void log(ServiceDefinition serviceDefinition, long durationNanos, Throwable t) {
+        if (!enabled) {
+            return;
+        }
+        if (t == null && durationNanos < slowThresholdNanos
+                && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), serviceDefinition.getServiceConfig(),
+                serviceDefinition.getMethodConfig(), durationNanos, t);
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 队列满丢弃的日志条数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        StringBuilder sb = new StringBuilder(512);
+        while (running || !queue.isEmpty()) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                sb.setLength(0);
+                format(sb, dateFormat, entry);
+                ACCESS_LOGGER.info(sb.toString());
+            } catch (Exception e) {
+                log.warn("write access log failed", e);
+            }
+        }
+    }
+
+    private void format(StringBuilder sb, SimpleDateFormat dateFormat, Entry entry) {
+        ServiceConfig serviceConfig = entry.serviceConfig;
+        MethodConfig methodConfig = entry.methodConfig;
+        Throwable cause = entry.throwable instanceof CompletionException && entry.throwable.getCause() != null
+                ? entry.throwable.getCause() : entry.throwable;
+        sb.append(dateFormat.format(new Date(entry.timestamp)))
+                .append(' ').append(serviceConfig.getInterfaceName())
+                .append('#').append(methodConfig.getMethodName())
+                .append(" group=").append(serviceConfig.getGroup())
+                .append(" version=").append(serviceConfig.getVersion())
+                .append(" result=").append(ResultCode.of(cause).name())
+                .append(" cost=").append(TimeUnit.NANOSECONDS.toMicros(entry.durationNanos) / 1000.0).append("ms")
+                .append(" params=");
+        // 大参数在这里整个toString一次，只发生在后台线程
+        truncate(sb, Arrays.deepToString(methodConfig.getParamValues()));
+        if (cause != null) {
+            sb.append(" error=");
+            truncate(sb, String.valueOf(cause.getMessage()));
+        }
+    }
+
+    private void truncate(StringBuilder sb, String value) {
+        if (maxFieldLength > 0 && value.length() > maxFieldLength) {
+            sb.append(value, 0, maxFieldLength).append("...(").append(value.length()).append(')');
+        } else {
+            sb.append(value);
+        }
+    }
+
+    private static class Entry {
+        final long timestamp;
+        final ServiceConfig serviceConfig;
+        final MethodConfig methodConfig;
+        final long durationNanos;
+        final Throwable throwable;
+
+        Entry(long timestamp, ServiceConfig serviceConfig, MethodConfig methodConfig, long durationNanos, Throwable throwable) {
+            this.timestamp = timestamp;
+            this.serviceConfig = serviceConfig;
+            this.methodConfig = methodConfig;
+            this.durationNanos = durationNanos;
+            this.throwable = throwable;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.apache.dubbo.proxy.metadata;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.SPI;
+import org.apache.dubbo.metadata.definition.model.MethodDefinition;
+
+import java.util.List;
+
+/**
+ * <p> Description:
+ * <p>  元数据收集，从元数据中心获取服务的方法签名，用于补全请求中没有填写的paramTypes。
+ * <p>  按元数据中心地址的协议选择实现，调用可能阻塞，不能在io线程上执行
+ */
+@SPI("zookeeper")
+public interface MetadataCollector {
+
+    /**
+     * 连接元数据中心
+     * @param url proxy.metadata-report配置的地址，参数中带有group、timeout
+     */
+    void init(URL url);
+
+    /**
+     * 获取服务的全部方法定义
+     * @return 元数据中心没有这个服务返回null
+     */
+    List<MethodDefinition> getMethods(String interfaceName, String version, String group) throws Exception;
+
+    /**
+     * 释放连接
+     */
+    default void destroy() {
+    }
+}
@@ -0,0 +1,181 @@
+package org.apache.dubbo.proxy.metadata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.config.MetadataReportConfig;
+import org.apache.dubbo.metadata.definition.model.MethodDefinition;
+import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.route.ServiceKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p> Description:
+ * <p>  方法签名缓存，请求没有填写paramTypes时按方法名和参数个数从缓存中取。
+ * <p>  每个服务只从元数据中心取一次，方法找不到时认为服务可能升级了，重新取一次，
+ * <p>  两次获取至少间隔MIN_REFRESH_MILLIS。获取在后台线程执行，不阻塞io线程。
+ * <p>  没有配置proxy.metadata-report.address时不启用
+ */
+@Slf4j
+@Component
+public class MethodSignatures {
+
+    private static final int MAX_SERVICES = 10000;
+    private static final long MIN_REFRESH_MILLIS = 10000;
+
+    private final ConfigCenter configCenter;
+    private final ConcurrentMap<ServiceKey, Signatures> signatures = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ServiceKey, CompletableFuture<Signatures>> loading = new ConcurrentHashMap<>();
+    private MetadataCollector collector;
+    private ExecutorService executor;
+
+    @Autowired
+    public MethodSignatures(ConfigCenter configCenter) {
+        this.configCenter = configCenter;
+    }
+
+    @PostConstruct
+    public void init() {
+        MetadataReportConfig metadataReport = configCenter.getProxyConfig().getMetadataReport();
+        if (metadataReport == null || StringUtils.isEmpty(metadataReport.getAddress())) {
+            return;
+        }
+        URL url = URL.valueOf(metadataReport.getAddress());
+        if (StringUtils.isNotEmpty(metadataReport.getGroup())) {
+            url = url.addParameter("group", metadataReport.getGroup());
+        }
+        if (metadataReport.getTimeout() != null) {
+            url = url.addParameter("timeout", metadataReport.getTimeout());
+        }
+        if (StringUtils.isNotEmpty(metadataReport.getUsername())) {
+            url = url.setUsername(metadataReport.getUsername()).setPassword(metadataReport.getPassword());
+        }
+        collector = ExtensionLoader.getExtensionLoader(MetadataCollector.class).getExtension(url.getProtocol());
+        collector.init(url);
+        executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("metadata-collector", true));
+        log.info("metadata collector {} initialized", url.getProtocol());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (collector != null) {
+            executor.shutdownNow();
+            collector.destroy();
+        }
+    }
+
+    public boolean isEnabled() {
+        return collector != null;
+    }
+
+    /**
+     * 缓存命中时返回已完成的future，否则在后台获取服务定义
+     *
+     * @throws IllegalArgumentException 重载方法参数个数相同，无法推断
+     */
+    public CompletableFuture<String[]> paramTypes(ServiceKey key, String methodName, int paramCount) {
+        Signatures current = signatures.get(key);
+        if (current != null) {
+            String[] types = current.find(methodName, paramCount);
+            if (types != null) {
+                return CompletableFuture.completedFuture(types);
+            }
+            if (System.currentTimeMillis() - current.loadedAt < MIN_REFRESH_MILLIS) {
+                CompletableFuture<String[]> future = new CompletableFuture<>();
+                future.completeExceptionally(notFound(key, methodName, paramCount));
+                return future;
+            }
+        }
+        return load(key).thenApply(loaded -> {
+            String[] types = loaded.find(methodName, paramCount);
+            if (types == null) {
+                throw notFound(key, methodName, paramCount);
+            }
+            return types;
+        });
+    }
+
+    private CompletableFuture<Signatures> load(ServiceKey key) {
+        CompletableFuture<Signatures> future = loading.get(key);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Signatures> created = new CompletableFuture<>();
+        future = loading.putIfAbsent(key, created);
+        if (future != null) {
+            return future;
+        }
+        executor.execute(() -> {
+            try {
+                List<MethodDefinition> methods = collector.getMethods(key.getInterfaceName(), key.getVersion(), key.getGroup());
+                // 元数据中心没有的服务也缓存，避免每次请求都去查
+                Signatures loaded = new Signatures(methods == null ? Collections.emptyList() : methods);
+                if (signatures.size() < MAX_SERVICES || signatures.containsKey(key)) {
+                    signatures.put(key, loaded);
+                }
+                created.complete(loaded);
+            } catch (Throwable e) {
+                log.warn("get metadata of {} failed", key, e);
+                created.completeExceptionally(e);
+            } finally {
+                loading.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    private static IllegalArgumentException notFound(ServiceKey key, String methodName, int paramCount) {
+        return new IllegalArgumentException("paramTypes is required, method " + methodName + " with "
+                + paramCount + " params not found in metadata of " + key);
+    }
+
+    /**
+     * 一个服务的全部方法签名，方法名 -> 各个重载的参数类型
+     */
+    private static class Signatures {
+        final Map<String, List<String[]>> methods = new HashMap<>();
+        final long loadedAt = System.currentTimeMillis();
+
+        Signatures(List<MethodDefinition> definitions) {
+            for (MethodDefinition definition : definitions) {
+                methods.computeIfAbsent(definition.getName(), name -> new ArrayList<>())
+                        .add(definition.getParameterTypes());
+            }
+        }
+
+        String[] find(String methodName, int paramCount) {
+            List<String[]> overloads = methods.get(methodName);
+            if (overloads == null) {
+                return null;
+            }
+            String[] found = null;
+            for (String[] types : overloads) {
+                if (types.length != paramCount) {
+                    continue;
+                }
+                if (found != null) {
+                    throw new IllegalArgumentException("paramTypes is required, method " + methodName
+                            + " has more than one overload with " + paramCount + " params");
+                }
+                found = types;
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.apache.dubbo.proxy.metadata.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.dubbo.metadata.definition.model.MethodDefinition;
+import org.apache.dubbo.proxy.metadata.MetadataCollector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p> Description:
+ * <p>  解析provider上报的FullServiceDefinition json，只关心方法名和参数类型
+ * <p>
+ */
+public abstract class AbstractMetadataCollector implements MetadataCollector {
+
+    protected static List<MethodDefinition> parseMethods(JsonNode serviceDefinition) {
+        List<MethodDefinition> methods = new ArrayList<>();
+        for (JsonNode method : serviceDefinition.path("methods")) {
+            JsonNode parameterTypes = method.path("parameterTypes");
+            String[] types = new String[parameterTypes.size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = parameterTypes.get(i).asText();
+            }
+            MethodDefinition methodDefinition = new MethodDefinition();
+            methodDefinition.setName(method.path("name").asText());
+            methodDefinition.setParameterTypes(types);
+            methodDefinition.setReturnType(method.path("returnType").asText(null));
+            methods.add(methodDefinition);
+        }
+        return methods;
+    }
+}
@@ -0,0 +1,37 @@
+package org.apache.dubbo.proxy.metadata.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.metadata.definition.model.MethodDefinition;
+import org.apache.dubbo.proxy.utils.JsonUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * <p> Description:
+ * <p>  从本地json文件读取服务定义，用于没有元数据中心的环境和离线测试，地址如file:///etc/dubbo-proxy/metadata.json。
+ * <p>  文件是一个对象，key为服务key(group/interface:version，没有的部分省略)，value和元数据中心中的服务定义格式相同：
+ * <p>  {"org.apache.dubbo.demo.DemoService": {"methods": [{"name": "sayHello", "parameterTypes": ["java.lang.String"]}]}}
+ */
+public class FileMetadataCollector extends AbstractMetadataCollector {
+
+    private Path file;
+
+    @Override
+    public void init(URL url) {
+        file = Paths.get(url.getAbsolutePath());
+    }
+
+    /**
+     * 每次都重新读文件，只在签名缓存没命中时调用，修改文件不需要重启
+     */
+    @Override
+    public List<MethodDefinition> getMethods(String interfaceName, String version, String group) throws Exception {
+        JsonNode services = JsonUtils.parseObject(Files.readAllBytes(file), JsonNode.class);
+        JsonNode service = services.get(URL.buildKey(interfaceName, group, version));
+        return service == null ? null : parseMethods(service);
+    }
+}
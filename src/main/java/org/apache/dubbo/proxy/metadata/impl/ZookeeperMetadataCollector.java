@@ -0,0 +1,74 @@
+package org.apache.dubbo.proxy.metadata.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryNTimes;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.CollectionUtils;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.metadata.definition.model.MethodDefinition;
+import org.apache.dubbo.proxy.utils.JsonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * <p> Description:
+ * <p>  从zookeeper元数据中心读取服务定义，路径和dubbo的ZookeeperMetadataReport一致：
+ * <p>  /{group}/metadata/{interface}[/{version}][/{group}]/provider/{application}，
+ * <p>  同一个服务的多个应用取第一个
+ */
+public class ZookeeperMetadataCollector extends AbstractMetadataCollector {
+
+    private static final String DEFAULT_ROOT = "dubbo";
+    private static final int DEFAULT_TIMEOUT = 5000;
+
+    private CuratorFramework client;
+    private String root;
+
+    @Override
+    public void init(URL url) {
+        root = "/" + url.getParameter("group", DEFAULT_ROOT);
+        int timeout = url.getParameter("timeout", DEFAULT_TIMEOUT);
+        CuratorFrameworkFactory.Builder builder = CuratorFrameworkFactory.builder()
+                .connectString(url.getBackupAddress())
+                .retryPolicy(new RetryNTimes(1, 1000))
+                .connectionTimeoutMs(timeout)
+                .sessionTimeoutMs(60000);
+        if (StringUtils.isNotEmpty(url.getUsername())) {
+            String authority = url.getUsername() + ":" + url.getPassword();
+            builder.authorization("digest", authority.getBytes(StandardCharsets.UTF_8));
+        }
+        client = builder.build();
+        client.start();
+    }
+
+    @Override
+    public List<MethodDefinition> getMethods(String interfaceName, String version, String group) throws Exception {
+        StringBuilder path = new StringBuilder(root).append("/metadata/").append(interfaceName);
+        if (StringUtils.isNotEmpty(version)) {
+            path.append('/').append(version);
+        }
+        if (StringUtils.isNotEmpty(group)) {
+            path.append('/').append(group);
+        }
+        path.append("/provider");
+        if (client.checkExists().forPath(path.toString()) == null) {
+            return null;
+        }
+        List<String> applications = client.getChildren().forPath(path.toString());
+        if (CollectionUtils.isEmpty(applications)) {
+            return null;
+        }
+        byte[] data = client.getData().forPath(path + "/" + applications.get(0));
+        return parseMethods(JsonUtils.parseObject(data, JsonNode.class));
+    }
+
+    @Override
+    public void destroy() {
+        if (client != null) {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.apache.dubbo.proxy.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p> Description:
+ * <p>  延迟直方图，计数按线程hash分散到固定数量的条带上，每个条带一段AtomicLongArray，
+ * <p>  不同线程大多落在不同条带，getAndAdd基本不冲突；内存只和CPU数有关，不随线程数增长。
+ * <p>  导出时把所有条带加起来，桶的边界和prometheus histogram的le对应
+ */
+public class LatencyHistogram {
+
+    /**
+     * 桶上界(ms)，最后还有一个+Inf桶
+     */
+    public static final double[] BOUNDS_MS = {0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_MS.length];
+
+    /**
+     * 每个条带的槽位：各桶计数 + 总耗时
+     */
+    private static final int SLOTS = BOUNDS_MS.length + 2;
+    /**
+     * 条带间隔按缓存行(8个long)对齐，再空出一个缓存行，避免相邻条带伪共享
+     */
+    private static final int STRIDE = (SLOTS + 7) / 8 * 8 + 8;
+    private static final int STRIPES = stripes();
+
+    static {
+        for (int i = 0; i < BOUNDS_MS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_MS[i] * TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private final AtomicLongArray values = new AtomicLongArray(STRIPES * STRIDE);
+
+    public void record(long durationNanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && durationNanos > BOUNDS_NANOS[i]) {
+            i++;
+        }
+        int base = stripe() * STRIDE;
+        values.getAndIncrement(base + i);
+        values.getAndAdd(base + SLOTS - 1, durationNanos);
+    }
+
+    /**
+     * @return 所有条带的汇总，前BOUNDS_MS.length + 1个是各桶计数(非累计)，最后一个是总耗时(ns)
+     */
+    public long[] snapshot() {
+        long[] result = new long[SLOTS];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int base = stripe * STRIDE;
+            for (int i = 0; i < result.length; i++) {
+                result[i] += values.get(base + i);
+            }
+        }
+        return result;
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * 2倍CPU数向上取2的幂，最多64个
+     */
+    private static int stripes() {
+        int n = Math.min(Runtime.getRuntime().availableProcessors() * 2, 64);
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+}
@@ -0,0 +1,228 @@
+package org.apache.dubbo.proxy.metrics;
+
+import org.apache.dubbo.proxy.log.AccessLog;
+import org.apache.dubbo.proxy.service.AsyncCachedServicePool;
+import org.apache.dubbo.proxy.service.CircuitBreaker;
+import org.apache.dubbo.proxy.service.CircuitBreakerRegistry;
+import org.apache.dubbo.proxy.service.RateLimiter;
+import org.apache.dubbo.proxy.service.RequestCoalescer;
+import org.apache.dubbo.proxy.service.ResponseCache;
+import org.apache.dubbo.proxy.utils.ResultCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> Description:
+ * <p>  代理的监控指标，按接口+方法统计延迟分布和各类结果的数量，以prometheus文本格式导出
+ * <p>
+ */
+@Component
+public class ProxyMetrics {
+
+    private static final ResultCode[] RESULT_CODES = ResultCode.values();
+
+    /**
+     * 单独统计的接口+方法最多这么多个，超过的计入OTHER
+     */
+    private static final int MAX_SERIES = 2000;
+
+    /**
+     * 不单独统计的调用的interface和method标签
+     */
+    static final String OTHER = "_other";
+
+    /**
+     * 桶上界换算成秒作为le标签
+     */
+    private static final String[] LE_LABELS = new String[LatencyHistogram.BOUNDS_MS.length + 1];
+
+    static {
+        for (int i = 0; i < LatencyHistogram.BOUNDS_MS.length; i++) {
+            LE_LABELS[i] = BigDecimal.valueOf(LatencyHistogram.BOUNDS_MS[i]).movePointLeft(3).stripTrailingZeros().toPlainString();
+        }
+        LE_LABELS[LatencyHistogram.BOUNDS_MS.length] = "+Inf";
+    }
+
+    /**
+     * interfaceName -> methodName -> 指标
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, MethodMetrics>> metrics = new ConcurrentHashMap<>();
+    /**
+     * 单独统计的接口+方法数
+     */
+    private final AtomicInteger series = new AtomicInteger();
+    private volatile MethodMetrics other;
+
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCache responseCache;
+    private final RateLimiter rateLimiter;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final AccessLog accessLog;
+    private final AsyncCachedServicePool servicePool;
+
+    @Autowired
+    public ProxyMetrics(RequestCoalescer requestCoalescer, ResponseCache responseCache,
+                        RateLimiter rateLimiter, CircuitBreakerRegistry circuitBreakerRegistry,
+                        AccessLog accessLog, AsyncCachedServicePool servicePool) {
+        this.requestCoalescer = requestCoalescer;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.accessLog = accessLog;
+        this.servicePool = servicePool;
+    }
+
+    public void record(String interfaceName, String methodName, long durationNanos, ResultCode resultCode) {
+        MethodMetrics methodMetrics = metricsOf(interfaceName, methodName, resultCode);
+        methodMetrics.latency.record(durationNanos);
+        methodMetrics.results[resultCode.ordinal()].increment();
+    }
+
+    /**
+     * 没有经过dubbo调用的结果，比如响应序列化失败
+     */
+    public void record(String interfaceName, String methodName, ResultCode resultCode) {
+        metricsOf(interfaceName, methodName, resultCode).results[resultCode.ordinal()].increment();
+    }
+
+    /**
+     * 接口名和方法名来自请求，只有provider确实执行过的方法(正常返回或业务异常)才单独统计，
+     * 其余的(方法不存在、服务不存在、还没成功过的方法失败等)计入OTHER，防止乱传的方法名撑大内存和prometheus标签
+     */
+    private MethodMetrics metricsOf(String interfaceName, String methodName, ResultCode resultCode) {
+        ConcurrentMap<String, MethodMetrics> serviceMetrics = metrics.get(interfaceName);
+        MethodMetrics methodMetrics = serviceMetrics == null ? null : serviceMetrics.get(methodName);
+        if (methodMetrics != null) {
+            return methodMetrics;
+        }
+        if ((resultCode != ResultCode.OK && resultCode != ResultCode.BIZERROR) || series.get() >= MAX_SERIES) {
+            return other();
+        }
+        if (serviceMetrics == null) {
+            serviceMetrics = metrics.computeIfAbsent(interfaceName, k -> new ConcurrentHashMap<>());
+        }
+        return serviceMetrics.computeIfAbsent(methodName, k -> {
+            series.incrementAndGet();
+            return new MethodMetrics();
+        });
+    }
+
+    private MethodMetrics other() {
+        MethodMetrics methodMetrics = other;
+        if (methodMetrics == null) {
+            methodMetrics = metrics.computeIfAbsent(OTHER, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(OTHER, k -> new MethodMetrics());
+            other = methodMetrics;
+        }
+        return methodMetrics;
+    }
+
+    /**
+     * prometheus text format 0.0.4
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# TYPE dubbo_proxy_requests_total counter\n");
+        for (Map.Entry<String, ConcurrentMap<String, MethodMetrics>> service : metrics.entrySet()) {
+            for (Map.Entry<String, MethodMetrics> method : service.getValue().entrySet()) {
+                LongAdder[] results = method.getValue().results;
+                for (ResultCode code : RESULT_CODES) {
+                    long count = results[code.ordinal()].sum();
+                    if (count > 0) {
+                        sb.append("dubbo_proxy_requests_total{");
+                        labels(sb, service.getKey(), method.getKey());
+                        sb.append(",result=\"").append(code.name().toLowerCase()).append("\"} ").append(count).append('\n');
+                    }
+                }
+            }
+        }
+
+        sb.append("# TYPE dubbo_proxy_request_duration_seconds histogram\n");
+        for (Map.Entry<String, ConcurrentMap<String, MethodMetrics>> service : metrics.entrySet()) {
+            for (Map.Entry<String, MethodMetrics> method : service.getValue().entrySet()) {
+                long[] snapshot = method.getValue().latency.snapshot();
+                long cumulative = 0;
+                for (int i = 0; i <= LatencyHistogram.BOUNDS_MS.length; i++) {
+                    cumulative += snapshot[i];
+                    sb.append("dubbo_proxy_request_duration_seconds_bucket{");
+                    labels(sb, service.getKey(), method.getKey());
+                    sb.append(",le=\"").append(LE_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+                }
+                sb.append("dubbo_proxy_request_duration_seconds_sum{");
+                labels(sb, service.getKey(), method.getKey());
+                sb.append("} ").append(snapshot[snapshot.length - 1] / (double) TimeUnit.SECONDS.toNanos(1)).append('\n');
+                sb.append("dubbo_proxy_request_duration_seconds_count{");
+                labels(sb, service.getKey(), method.getKey());
+                sb.append("} ").append(cumulative).append('\n');
+            }
+        }
+
+        counter(sb, "dubbo_proxy_coalesced_total", requestCoalescer.getHits());
+        counter(sb, "dubbo_proxy_coalesce_leader_total", requestCoalescer.getMisses());
+        counter(sb, "dubbo_proxy_response_cache_hits_total", responseCache.getHits());
+        counter(sb, "dubbo_proxy_response_cache_misses_total", responseCache.getMisses());
+        counter(sb, "dubbo_proxy_rate_limited_total", rateLimiter.getRejected());
+        counter(sb, "dubbo_proxy_access_log_dropped_total", accessLog.getDropped());
+        counter(sb, "dubbo_proxy_service_cache_hits_total", servicePool.getCacheHits());
+        counter(sb, "dubbo_proxy_service_cache_misses_total", servicePool.getCacheMisses());
+        counter(sb, "dubbo_proxy_service_cache_evictions_total", servicePool.getCacheEvictions());
+        sb.append("# TYPE dubbo_proxy_service_cache_size gauge\n")
+                .append("dubbo_proxy_service_cache_size ").append(servicePool.getCacheSize()).append('\n');
+
+        sb.append("# TYPE dubbo_proxy_circuit_breaker_state gauge\n");
+        for (CircuitBreaker breaker : circuitBreakerRegistry.getBreakers()) {
+            sb.append("dubbo_proxy_circuit_breaker_state{name=\"");
+            escape(sb, breaker.getName());
+            sb.append("\"} ").append(breaker.getState()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, long value) {
+        sb.append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void labels(StringBuilder sb, String interfaceName, String methodName) {
+        sb.append("interface=\"");
+        escape(sb, interfaceName);
+        sb.append("\",method=\"");
+        escape(sb, methodName);
+        sb.append('"');
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private static class MethodMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder[] results = new LongAdder[RESULT_CODES.length];
+
+        MethodMetrics() {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = new LongAdder();
+            }
+        }
+    }
+}
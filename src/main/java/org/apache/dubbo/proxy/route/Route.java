@@ -0,0 +1,203 @@
+package org.apache.dubbo.proxy.route;
+
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.service.AsyncServicePool;
+import org.apache.dubbo.proxy.service.TypedService;
+import org.apache.dubbo.rpc.support.ProtocolUtils;
+import org.apache.dubbo.rpc.service.GenericService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p> Description:
+ * <p>  路由表中的一条路由，同一个服务每次请求拿到的是同一个对象。
+ * <p>  mapping.services中的服务由路由直接持有ReferenceConfig并缓存GenericService，不再查服务池，
+ * <p>  没有预热完的服务由服务池的线程初始化invoker，请求等待同一个初始化的future，
+ * <p>  同时记录正在进行的调用数，配置重新加载后旧的ReferenceConfig等调用结束再销毁
+ */
+public final class Route {
+
+    private static final int MAX_METHOD_KEYS = 1024;
+
+    private final String name;
+    private final ServiceConfig serviceConfig;
+    private final ServiceKey key;
+    /**
+     * mapping.services中的服务才有，动态服务为null
+     */
+    private final ReferenceConfig<?> reference;
+    /**
+     * generic=false并且接口类能加载时才有，否则为null
+     */
+    private final TypedService typed;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    /**
+     * methodName -> interfaceName#methodName，用作按方法统计的key
+     */
+    private final ConcurrentMap<String, String> methodKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化invoker(reference.get())的future，预热中或者第一次请求触发后不为null
+     */
+    private final AtomicReference<CompletableFuture<Object>> ready = new AtomicReference<>();
+    private volatile CompletableFuture<GenericService> service;
+
+    Route(String name, ServiceConfig serviceConfig, ReferenceConfig<?> reference) {
+        this.name = name;
+        this.serviceConfig = serviceConfig;
+        this.key = ServiceKey.of(serviceConfig);
+        this.reference = reference;
+        this.typed = reference == null || ProtocolUtils.isGeneric(reference.getGeneric())
+                ? null : TypedService.of(reference.getInterfaceClass());
+    }
+
+    /**
+     * url路径中的服务名，mapping.services中的服务是配置的key，其余是接口名
+     */
+    public String getName() {
+        return name;
+    }
+
+    public ServiceConfig getServiceConfig() {
+        return serviceConfig;
+    }
+
+    public ServiceKey getKey() {
+        return key;
+    }
+
+    public boolean isMapped() {
+        return reference != null;
+    }
+
+    ReferenceConfig<?> getReference() {
+        return reference;
+    }
+
+    public TypedService getTyped() {
+        return typed;
+    }
+
+    /**
+     * 开始一次调用，必须和release成对出现
+     */
+    public void acquire() {
+        acquired.increment();
+    }
+
+    public void release() {
+        released.increment();
+    }
+
+    /**
+     * 正在进行的调用数，先读release保证结果不会是负数
+     */
+    long inflight() {
+        long releasedCount = released.sum();
+        return acquired.sum() - releasedCount;
+    }
+
+    public String methodKey(String methodName) {
+        String methodKey = methodKeys.get(methodName);
+        if (methodKey != null) {
+            return methodKey;
+        }
+        // 方法名来自请求，防止乱传的方法名把map撑大
+        if (methodKeys.size() >= MAX_METHOD_KEYS) {
+            return serviceConfig.getInterfaceName() + '#' + methodName;
+        }
+        return methodKeys.computeIfAbsent(methodName, m -> serviceConfig.getInterfaceName() + '#' + m);
+    }
+
+    /**
+     * 动态服务可能被服务池淘汰销毁，不能缓存，每次都从服务池取
+     */
+    public CompletableFuture<GenericService> service(AsyncServicePool pool) {
+        if (reference == null) {
+            return pool.getAsync(serviceConfig);
+        }
+        CompletableFuture<GenericService> future = service;
+        if (future != null) {
+            return future;
+        }
+        return init(pool::initAsync).thenApply(GenericService.class::cast);
+    }
+
+    /**
+     * 类型化路由的接口代理
+     */
+    public CompletableFuture<Object> proxy(AsyncServicePool pool) {
+        return init(pool::initAsync);
+    }
+
+    /**
+     * 初始化invoker，正在预热或者已经有请求在初始化时返回同一个future，不会在io线程上get。
+     * 失败后下一次调用重新初始化
+     */
+    private CompletableFuture<Object> init(Function<ReferenceConfig<?>, CompletableFuture<Object>> initializer) {
+        for (; ; ) {
+            CompletableFuture<Object> current = ready.get();
+            if (current != null && !current.isCompletedExceptionally()) {
+                return current;
+            }
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            if (!ready.compareAndSet(current, created)) {
+                continue;
+            }
+            CompletableFuture<Object> future;
+            try {
+                future = initializer.apply(reference);
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+                return created;
+            }
+            future.whenComplete((r, t) -> {
+                if (t != null) {
+                    created.completeExceptionally(t);
+                    return;
+                }
+                if (typed == null) {
+                    service = CompletableFuture.completedFuture((GenericService) r);
+                }
+                created.complete(r);
+            });
+            return created;
+        }
+    }
+
+    /**
+     * 预热：在当前线程初始化invoker，之后的请求直接拿到初始化好的GenericService或接口代理
+     */
+    void warm() {
+        try {
+            init(Route::get).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static CompletableFuture<Object> get(ReferenceConfig<?> reference) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            future.complete(reference.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public String toString() {
+        return name + "->" + key;
+    }
+}
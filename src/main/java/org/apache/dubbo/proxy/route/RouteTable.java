@@ -0,0 +1,302 @@
+package org.apache.dubbo.proxy.route;
+
+import io.netty.handler.codec.http.QueryStringDecoder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.utils.CollectionUtils;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.proxy.cluster.ClusterParameters;
+import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.service.AsyncServicePool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  路由表，根据mapping.services预先编译，请求路径直接在开放寻址的数组中按字符比较查找，
+ * <p>  不需要截取子串、解析query和创建ServiceConfig，mapping.services中的服务路由不产生任何分配。
+ * <p>  其余服务(非严格模式)按接口、分组、版本缓存路由对象。
+ * <p>  mapping.services变更时在后台线程创建新的ReferenceConfig，整张表通过一次volatile写替换，
+ * <p>  请求线程读路由不加锁，旧的ReferenceConfig等正在进行的调用结束后再销毁
+ */
+@Slf4j
+@Component
+public class RouteTable {
+
+    /**
+     * 动态路由最多缓存的数量，超过后不再缓存
+     */
+    private static final int MAX_DYNAMIC_ROUTES = 10000;
+
+    /**
+     * 替换后至少等这么久再检查旧路由的调用数，覆盖已经查到旧路由但还没开始调用的请求
+     */
+    private static final long DRAIN_GRACE_MILLIS = 1000;
+    private static final long DRAIN_CHECK_MILLIS = 100;
+    private static final long DRAIN_TIMEOUT_MILLIS = 60000;
+
+    private final ConfigCenter configCenter;
+    private final AsyncServicePool asyncServicePool;
+    private final ConcurrentMap<ServiceKey, Route> dynamicRoutes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reloadExecutor =
+            Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("service-mapping-reload", true));
+
+    private volatile Routes routes;
+
+    @Autowired
+    public RouteTable(ConfigCenter configCenter, AsyncServicePool asyncServicePool) {
+        this.configCenter = configCenter;
+        this.asyncServicePool = asyncServicePool;
+        // 启动时不get，由RouteWarmer并行预热，没预热完的第一次请求时初始化invoker
+        this.routes = build(configCenter.getServiceMapping(), null, false);
+        configCenter.addListener(this::onChange);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        reloadExecutor.shutdownNow();
+        for (Route route : routes.byName.values()) {
+            route.getReference().destroy();
+        }
+    }
+
+    /**
+     * 根据请求uri查找路由，路径的第一段是服务名，group、version在query中
+     *
+     * @return 严格模式下不在mapping.services中的服务返回null
+     */
+    public Route route(String uri) {
+        int start = 0;
+        int length = uri.length();
+        while (start < length && uri.charAt(start) == '/') {
+            start++;
+        }
+        int end = start;
+        int hash = 0;
+        for (char c; end < length && (c = uri.charAt(end)) != '/' && c != '?' && c != '#'; end++) {
+            hash = 31 * hash + c;
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("service name is required: " + uri);
+        }
+        Route route = routes.find(uri, start, end, hash);
+        if (route != null) {
+            return route;
+        }
+        if (configCenter.getProxyConfig().getStrict()) {
+            return null;
+        }
+        QueryStringDecoder decoder = new QueryStringDecoder(uri);
+        Map<String, List<String>> parameters = decoder.parameters();
+        return dynamicRoute(uri.substring(start, end), first(parameters.get("group")), first(parameters.get("version")));
+    }
+
+    /**
+     * uri中的服务名，用于错误信息
+     */
+    public static String serviceName(String uri) {
+        return new StringTokenizer(new QueryStringDecoder(uri).rawPath(), "/").nextToken();
+    }
+
+    /**
+     * 批量调用等请求体中指定服务的场景
+     */
+    public Route route(String name, String group, String version) {
+        Route route = routes.find(name, 0, name.length(), name.hashCode());
+        if (route != null) {
+            return route;
+        }
+        if (configCenter.getProxyConfig().getStrict()) {
+            return null;
+        }
+        return dynamicRoute(name, group, version);
+    }
+
+    /**
+     * 当前mapping.services中的全部路由
+     */
+    public List<Route> mappedRoutes() {
+        return new ArrayList<>(routes.byName.values());
+    }
+
+    private Route dynamicRoute(String interfaceName, String group, String version) {
+        ServiceKey key = new ServiceKey(interfaceName, group, version);
+        Route route = dynamicRoutes.get(key);
+        if (route != null) {
+            return route;
+        }
+        ServiceConfig serviceConfig = new ServiceConfig();
+        serviceConfig.setInterfaceName(interfaceName);
+        serviceConfig.setGroup(group);
+        serviceConfig.setVersion(version);
+        route = new Route(interfaceName, serviceConfig, null);
+        if (dynamicRoutes.size() >= MAX_DYNAMIC_ROUTES) {
+            return route;
+        }
+        Route existing = dynamicRoutes.putIfAbsent(key, route);
+        return existing == null ? route : existing;
+    }
+
+    private static String first(List<String> values) {
+        return CollectionUtils.isEmpty(values) ? null : values.get(0);
+    }
+
+    private void onChange(ProxyConfig proxyConfig, Map<String, ServiceConfig> serviceMapping) {
+        reloadExecutor.execute(() -> reload(serviceMapping));
+    }
+
+    /**
+     * 只在reload线程执行，多次变更按顺序处理
+     */
+    private void reload(Map<String, ServiceConfig> serviceMapping) {
+        Routes current = routes;
+        Routes next;
+        try {
+            next = build(serviceMapping, current, true);
+        } catch (Exception e) {
+            log.error("reload service mapping failed, keep the current one", e);
+            return;
+        }
+        routes = next;
+        log.info("service mapping reloaded, services: {}", next.byName.keySet());
+
+        Set<ReferenceConfig<?>> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Route route : next.byName.values()) {
+            inUse.add(route.getReference());
+        }
+        for (Route route : current.byName.values()) {
+            if (!inUse.contains(route.getReference())) {
+                drain(route, System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * 连接相关的配置都没变时沿用旧的ReferenceConfig，只有调用策略变化不需要重建，对冲等集群调用参数除外。
+     * 新建的ReferenceConfig在这里get，失败时销毁已经新建的并放弃这次变更
+     */
+    private Routes build(Map<String, ServiceConfig> serviceMapping, Routes current, boolean eager) {
+        List<Route> routeList = new ArrayList<>(serviceMapping.size());
+        List<ReferenceConfig<?>> created = new ArrayList<>();
+        try {
+            for (Map.Entry<String, ServiceConfig> entry : serviceMapping.entrySet()) {
+                ServiceConfig serviceConfig = entry.getValue();
+                Route previous = current == null ? null : current.byName.get(entry.getKey());
+                ReferenceConfig<?> reference;
+                if (previous != null && sameReference(previous.getServiceConfig(), serviceConfig)) {
+                    reference = previous.getReference();
+                } else {
+                    reference = asyncServicePool.createReference(serviceConfig);
+                    created.add(reference);
+                }
+                Route route = new Route(entry.getKey(), serviceConfig, reference);
+                if (eager) {
+                    route.warm();
+                }
+                routeList.add(route);
+            }
+        } catch (RuntimeException e) {
+            for (ReferenceConfig<?> reference : created) {
+                reference.destroy();
+            }
+            throw e;
+        }
+        return new Routes(routeList);
+    }
+
+    private static boolean sameReference(ServiceConfig a, ServiceConfig b) {
+        return Objects.equals(a.getInterfaceName(), b.getInterfaceName())
+                && Objects.equals(a.getGroup(), b.getGroup())
+                && Objects.equals(a.getVersion(), b.getVersion())
+                && Objects.equals(a.getTimeout(), b.getTimeout())
+                && Objects.equals(a.getRetries(), b.getRetries())
+                && Objects.equals(a.getTag(), b.getTag())
+                && Objects.equals(a.getActives(), b.getActives())
+                && Objects.equals(a.getProtocol(), b.getProtocol())
+                && Objects.equals(a.getCluster(), b.getCluster())
+                && Objects.equals(a.getOwner(), b.getOwner())
+                && Objects.equals(a.getUrl(), b.getUrl())
+                && Objects.equals(a.getLoadbalance(), b.getLoadbalance())
+                && Objects.equals(a.getConnections(), b.getConnections())
+                && Objects.equals(a.getGeneric(), b.getGeneric())
+                && ClusterParameters.of(a).equals(ClusterParameters.of(b));
+    }
+
+    /**
+     * 等旧路由上的调用结束后销毁ReferenceConfig，超过DRAIN_TIMEOUT_MILLIS强制销毁
+     */
+    private void drain(Route route, long start) {
+        reloadExecutor.schedule(() -> {
+            long elapsed = System.currentTimeMillis() - start;
+            long inflight = route.inflight();
+            if (inflight > 0 && elapsed < DRAIN_TIMEOUT_MILLIS) {
+                drain(route, start);
+                return;
+            }
+            if (inflight > 0) {
+                log.warn("destroy reference of {} with {} calls in flight", route, inflight);
+            }
+            route.getReference().destroy();
+            log.info("reference of {} destroyed after {}ms", route, elapsed);
+        }, System.currentTimeMillis() - start < DRAIN_GRACE_MILLIS ? DRAIN_GRACE_MILLIS : DRAIN_CHECK_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * mapping.services的一个快照，构建后不再修改
+     */
+    private static class Routes {
+        final Route[] table;
+        final int mask;
+        final Map<String, Route> byName = new HashMap<>();
+
+        Routes(List<Route> routeList) {
+            int capacity = Integer.highestOneBit(Math.max(routeList.size(), 1) * 4 - 1) << 1;
+            table = new Route[capacity];
+            mask = capacity - 1;
+            for (Route route : routeList) {
+                int index = route.getName().hashCode() & mask;
+                while (table[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = route;
+                byName.put(route.getName(), route);
+            }
+        }
+
+        /**
+         * 和String.hashCode同样的算法，直接在uri上比较，不截取子串
+         */
+        Route find(String uri, int start, int end, int hash) {
+            int length = end - start;
+            for (int index = hash & mask; ; index = (index + 1) & mask) {
+                Route route = table[index];
+                if (route == null) {
+                    return null;
+                }
+                String name = route.getName();
+                if (name.length() == length && uri.regionMatches(start, name, 0, length)) {
+                    return route;
+                }
+            }
+        }
+    }
+}
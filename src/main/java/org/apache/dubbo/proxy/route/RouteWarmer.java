@@ -0,0 +1,179 @@
+package org.apache.dubbo.proxy.route;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p> Description:
+ * <p>  启动时并行预热mapping.services中的服务，逐个订阅注册中心时服务多了启动很慢，
+ * <p>  同时第一次请求也不用等待初始化invoker。
+ * <p>  预热到配置的比例后就绪，剩下的在后台继续预热；没有就绪前代理对请求返回503，失败的服务隔一段时间重试
+ */
+@Slf4j
+@Component
+public class RouteWarmer {
+
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final long DEFAULT_TIMEOUT = 30000;
+    private static final double DEFAULT_READY_RATIO = 1.0;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final ConfigCenter configCenter;
+    private final RouteTable routeTable;
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean ready;
+
+    @Autowired
+    public RouteWarmer(ConfigCenter configCenter, RouteTable routeTable) {
+        this.configCenter = configCenter;
+        this.routeTable = routeTable;
+    }
+
+    /**
+     * 预热成功的服务是否达到了proxy.warmupReadyRatio，就绪后不会再变回未就绪
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 阻塞到预热的服务达到proxy.warmupReadyRatio，或者超过proxy.warmupTimeout
+     *
+     * @return 是否达到了要求的比例，没有达到时后台继续预热，达到后isReady变为true
+     */
+    public boolean warmup() throws InterruptedException {
+        ProxyConfig proxyConfig = configCenter.getProxyConfig();
+        List<Route> routes = routeTable.mappedRoutes();
+        if (Boolean.FALSE.equals(proxyConfig.getWarmup()) || routes.isEmpty()) {
+            ready = true;
+            return true;
+        }
+        int parallelism = proxyConfig.getWarmupParallelism() == null || proxyConfig.getWarmupParallelism() <= 0
+                ? DEFAULT_PARALLELISM : proxyConfig.getWarmupParallelism();
+        long timeout = proxyConfig.getWarmupTimeout() == null ? DEFAULT_TIMEOUT : proxyConfig.getWarmupTimeout();
+        double ratio = proxyConfig.getWarmupReadyRatio() == null ? DEFAULT_READY_RATIO : proxyConfig.getWarmupReadyRatio();
+        int required = (int) Math.ceil(Math.min(Math.max(ratio, 0), 1) * routes.size());
+        if (required == 0) {
+            ready = true;
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.min(parallelism, routes.size()),
+                new NamedThreadFactory("service-warmup", true));
+        this.executor = executor;
+        Warmup warmup = new Warmup(executor, routes.size(), required);
+        for (Route route : routes) {
+            warmup.pending.put(route.getName(), route);
+        }
+        for (Route route : routes) {
+            executor.execute(() -> warmup.warm(route));
+        }
+
+        if (!warmup.readyLatch.await(timeout, TimeUnit.MILLISECONDS)) {
+            warmup.timedOut = true;
+        }
+        if (!ready) {
+            log.error("only {}/{} services warmed up in {}ms, {} required, responding 503 until ready, failed: {}, pending: {}",
+                    warmup.warmed.get(), routes.size(), warmup.elapsed(), required,
+                    warmup.failures.keySet(), new ArrayList<>(warmup.pending.keySet()));
+            return false;
+        }
+        log.info("{}/{} services warmed up in {}ms, failed: {}, still warming: {}", warmup.warmed.get(), routes.size(),
+                warmup.elapsed(), warmup.failures.keySet(), new ArrayList<>(warmup.pending.keySet()));
+        return true;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ExecutorService executor = this.executor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Warmup {
+        final ScheduledThreadPoolExecutor executor;
+        final int total;
+        final int required;
+        final long start = System.currentTimeMillis();
+        final AtomicInteger warmed = new AtomicInteger();
+        final CountDownLatch readyLatch = new CountDownLatch(1);
+        final ConcurrentMap<String, Throwable> failures = new ConcurrentHashMap<>();
+        final ConcurrentMap<String, Route> pending = new ConcurrentHashMap<>();
+        /**
+         * warmup已经超时返回，之后就绪时单独打印日志
+         */
+        volatile boolean timedOut;
+
+        Warmup(ScheduledThreadPoolExecutor executor, int total, int required) {
+            this.executor = executor;
+            this.total = total;
+            this.required = required;
+            if (required == 0) {
+                readyLatch.countDown();
+            }
+        }
+
+        void warm(Route route) {
+            try {
+                route.warm();
+            } catch (Throwable e) {
+                if (failures.put(route.getName(), e) == null) {
+                    log.warn("warm up service [{}] failed: {}", route.getName(), e.toString());
+                }
+                retry(route);
+                return;
+            }
+            failures.remove(route.getName());
+            pending.remove(route.getName());
+            if (warmed.incrementAndGet() == required) {
+                onReady();
+            } else if (pending.isEmpty()) {
+                executor.shutdown();
+            }
+        }
+
+        /**
+         * 就绪前失败的服务一直重试，就绪后不再重试，第一次请求时再初始化
+         */
+        private void retry(Route route) {
+            if (ready) {
+                return;
+            }
+            try {
+                executor.schedule(() -> warm(route), RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 已经就绪或者关闭了
+            }
+        }
+
+        private void onReady() {
+            ready = true;
+            readyLatch.countDown();
+            // 已经提交的继续执行，预热完线程退出
+            executor.shutdown();
+            if (timedOut) {
+                log.info("{}/{} services warmed up in {}ms, dubbo proxy is ready", warmed.get(), total, elapsed());
+            }
+        }
+
+        long elapsed() {
+            return System.currentTimeMillis() - start;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.apache.dubbo.proxy.route;
+
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+
+import java.util.Objects;
+
+/**
+ * <p> Description:
+ * <p>  动态服务的key，只有接口、分组和版本三个字段，hash预先算好，
+ * <p>  代替13个字段的ServiceConfig作为缓存key
+ */
+public final class ServiceKey {
+
+    private final String interfaceName;
+    private final String group;
+    private final String version;
+    private final int hash;
+
+    public ServiceKey(String interfaceName, String group, String version) {
+        this.interfaceName = interfaceName;
+        this.group = group;
+        this.version = version;
+        this.hash = Objects.hash(interfaceName, group, version);
+    }
+
+    public static ServiceKey of(ServiceConfig serviceConfig) {
+        return new ServiceKey(serviceConfig.getInterfaceName(), serviceConfig.getGroup(), serviceConfig.getVersion());
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ServiceKey)) {
+            return false;
+        }
+        ServiceKey that = (ServiceKey) o;
+        return hash == that.hash
+                && Objects.equals(interfaceName, that.interfaceName)
+                && Objects.equals(group, that.group)
+                && Objects.equals(version, that.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return (group == null ? "" : group + "/") + interfaceName + (version == null ? "" : ":" + version);
+    }
+}
@@ -2,43 +2,80 @@ package org.apache.dubbo.proxy.server;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.HttpUtil;
-import io.netty.handler.codec.http.QueryStringDecoder;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.dubbo.common.utils.CollectionUtils;
 import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.apache.dubbo.proxy.entity.BatchItem;
+import org.apache.dubbo.proxy.entity.InvokeResult;
 import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
 import org.apache.dubbo.proxy.entity.ServiceConfig;
 import org.apache.dubbo.proxy.entity.ServiceDefinition;
+import org.apache.dubbo.proxy.metrics.ProxyMetrics;
+import org.apache.dubbo.proxy.route.Route;
+import org.apache.dubbo.proxy.route.RouteTable;
+import org.apache.dubbo.proxy.route.RouteWarmer;
 import org.apache.dubbo.proxy.service.AsyncGenericInvoker;
+import org.apache.dubbo.proxy.service.CircuitBreakerOpenException;
+import org.apache.dubbo.proxy.service.ServicePoolBusyException;
+import org.apache.dubbo.proxy.service.RateLimiter;
+import org.apache.dubbo.proxy.service.RequestKey;
+import org.apache.dubbo.proxy.service.ResponseCache;
 import org.apache.dubbo.proxy.utils.HttpTools;
 import org.apache.dubbo.proxy.utils.JsonUtils;
+import org.apache.dubbo.proxy.utils.ResultCode;
+import org.apache.dubbo.proxy.utils.TimeoutFuture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiConsumer;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.*;
+import static org.apache.dubbo.proxy.utils.Constants.BATCH_PATH;
+import static org.apache.dubbo.proxy.utils.Constants.GENERIC_GSON;
 
 
 @ChannelHandler.Sharable
 @Slf4j
-public class HttpProcessHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+@Component
+public class HttpProcessHandler extends SimpleChannelInboundHandler<ProxyRequest> {
+
+    private static final int DEFAULT_BATCH_MAX_SIZE = 50;
+    private static final long DEFAULT_BATCH_TIMEOUT = 3000;
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
 
     private ConfigCenter configCenter;
     private AsyncGenericInvoker asyncGenericInvoker;
+    private ResponseCache responseCache;
+    private RateLimiter rateLimiter;
+    private ProxyMetrics proxyMetrics;
+    private RouteTable routeTable;
+    private RouteWarmer routeWarmer;
 
+    @Autowired
     public HttpProcessHandler(ConfigCenter configCenter,
-                              AsyncGenericInvoker asyncGenericInvoker) {
+                              AsyncGenericInvoker asyncGenericInvoker,
+                              ResponseCache responseCache,
+                              RateLimiter rateLimiter,
+                              ProxyMetrics proxyMetrics,
+                              RouteTable routeTable,
+                              RouteWarmer routeWarmer) {
         super();
         this.configCenter = configCenter;
+        this.routeTable = routeTable;
+        this.routeWarmer = routeWarmer;
         this.asyncGenericInvoker = asyncGenericInvoker;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.proxyMetrics = proxyMetrics;
     }
 
     @Override
@@ -47,27 +84,37 @@ public class HttpProcessHandler extends SimpleChannelInboundHandler<FullHttpRequ
     }
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) {
+    protected void channelRead0(ChannelHandlerContext ctx, ProxyRequest msg) {
         ServiceDefinition serviceDefinition = null;
         try {
-            serviceDefinition = parseParam(msg);
-
-            ServiceConfig serviceConfig = serviceDefinition.getServiceConfig();
-
-            Map<String, ServiceConfig> serviceMapping =
-                    configCenter.getServiceMapping();
-            ServiceConfig mappedServiceCd = serviceMapping.get(serviceConfig.getInterfaceName());
+            String metricsPath = configCenter.getProxyConfig().getMetricsPath();
+            if (metricsPath != null && isPath(msg.getUri(), metricsPath)) {
+                HttpTools.writeText(ctx, proxyMetrics.scrape(), PROMETHEUS_CONTENT_TYPE, msg.isKeepAlive());
+                return;
+            }
+            if (!routeWarmer.isReady()) {
+                HttpTools.writeResponse(ctx, "dubbo proxy is warming up, not ready", msg.isKeepAlive(), SERVICE_UNAVAILABLE);
+                return;
+            }
+            if (isPath(msg.getUri(), BATCH_PATH)) {
+                doBatch(ctx, msg);
+                return;
+            }
 
-            if (mappedServiceCd == null && configCenter.getProxyConfig().getStrict()) {
-                HttpTools.writeError(ctx, "service [" + serviceConfig.getInterfaceName() + "] not found!", NOT_FOUND);
+            Route route = routeTable.route(msg.getUri());
+            if (route == null) {
+                HttpTools.writeError(ctx, "service [" + RouteTable.serviceName(msg.getUri()) + "] not found!", NOT_FOUND);
                 return;
             }
 
-            if (mappedServiceCd != null) {
-                serviceDefinition.setServiceConfig(mappedServiceCd);
+            serviceDefinition = parseParam(msg, route);
+
+            if (!rateLimiter.tryAcquire(route.getServiceConfig(), serviceDefinition.getMethodConfig().getMethodName())) {
+                HttpTools.writeResponse(ctx, "service [" + route.getName() + "] rate limited", msg.isKeepAlive(), TOO_MANY_REQUESTS);
+                return;
             }
 
-            doRequest(ctx, serviceDefinition, HttpUtil.isKeepAlive(msg));
+            doRequest(ctx, serviceDefinition, msg.isKeepAlive());
         } catch (IllegalArgumentException e) {
             log.error(msg.toString(), e);
             HttpTools.writeError(ctx, e.getMessage(), BAD_REQUEST);
@@ -77,48 +124,186 @@ public class HttpProcessHandler extends SimpleChannelInboundHandler<FullHttpRequ
         }
     }
 
-    private static ServiceDefinition parseParam(FullHttpRequest msg) {
+    private static boolean isPath(String uri, String path) {
+        return uri.startsWith(path)
+                && (uri.length() == path.length() || uri.charAt(path.length()) == '?');
+    }
+
+    /**
+     * generic=gson的服务参数以json文本透传给provider
+     */
+    private static boolean isRawParams(Route route) {
+        return GENERIC_GSON.equals(route.getServiceConfig().getGeneric());
+    }
+
+    /**
+     * 路由已经由RouteTable解析好，这里只需要从body绑定MethodConfig，
+     * 类型化调用的服务参数保留成token，由TypedService按参数类型绑定
+     */
+    static ServiceDefinition parseParam(ProxyRequest msg, Route route) {
         try {
-            QueryStringDecoder queryStringDecoder = new QueryStringDecoder(msg.uri());
-            Map<String, List<String>> parameters = queryStringDecoder.parameters();
-            List<String> group = parameters.get("group");
-            List<String> version = parameters.get("version");
-            String path = queryStringDecoder.rawPath();
-            StringTokenizer stringTokenizer = new StringTokenizer(path, "/");
-            ByteBuf raw = msg.content();
-            byte[] bytes = ByteBufUtil.getBytes(raw);
+            MethodConfig methodConfig = route.getTyped() != null ? JsonUtils.parseTokenParams(msg.getBody())
+                    : isRawParams(route) ? JsonUtils.parseRawParams(msg.getBody())
+                    : JsonUtils.parseObject(msg.getBody(), MethodConfig.class);
+            if (methodConfig == null) {
+                throw new IllegalArgumentException("request body is empty");
+            }
             ServiceDefinition serviceDefinition = new ServiceDefinition();
-            MethodConfig methodConfig = JsonUtils.parseObject(bytes, MethodConfig.class);
+            serviceDefinition.setServiceConfig(route.getServiceConfig());
             serviceDefinition.setMethodConfig(methodConfig);
-            ServiceConfig serviceConfig = new ServiceConfig();
-            serviceConfig.setGroup(CollectionUtils.isEmpty(group) ? null : group.get(0));
-            serviceConfig.setVersion(CollectionUtils.isEmpty(version) ? null : version.get(0));
-            serviceConfig.setInterfaceName(stringTokenizer.nextToken());
-            serviceDefinition.setServiceConfig(serviceConfig);
+            serviceDefinition.setRoute(route);
             return serviceDefinition;
         } catch (Exception e) {
             throw new IllegalArgumentException(e);
         }
-
     }
 
     private void doRequest(ChannelHandlerContext ctx, ServiceDefinition serviceDefinition, boolean keepalive) {
+        ServiceConfig serviceConfig = serviceDefinition.getServiceConfig();
+        MethodConfig methodConfig = serviceDefinition.getMethodConfig();
+        MethodPolicy policy = serviceConfig.policyOf(methodConfig.getMethodName());
+        RequestKey cacheKey = null;
+        if (ResponseCache.isEnabled(policy)) {
+            cacheKey = new RequestKey(serviceConfig, methodConfig);
+            byte[] cached = responseCache.get(cacheKey, policy);
+            if (cached != null) {
+                HttpTools.writeJson(ctx, Unpooled.wrappedBuffer(cached), keepalive, OK);
+                return;
+            }
+        }
 
         CompletableFuture<Object> resultFuture = asyncGenericInvoker.genericCall(serviceDefinition);
+        String sizeKey = serviceDefinition.getRoute().methodKey(methodConfig.getMethodName());
+        RequestKey key = cacheKey;
 
         resultFuture.whenComplete(new BiConsumer<Object, Throwable>() {
             @Override
             public void accept(Object r, Throwable t) {
                 if (r != null) {
-                    HttpTools.writeOK(ctx, r, keepalive);
+                    ByteBuf body;
+                    try {
+                        body = HttpTools.serialize(ctx, sizeKey, r);
+                    } catch (Exception e) {
+                        proxyMetrics.record(serviceConfig.getInterfaceName(), methodConfig.getMethodName(), ResultCode.SERIALIZATION);
+                        HttpTools.writeError(ctx, e.getMessage(), INTERNAL_SERVER_ERROR);
+                        log.error("serialize response failed", e);
+                        return;
+                    }
+                    if (key != null) {
+                        responseCache.put(key, policy, ByteBufUtil.getBytes(body));
+                    }
+                    HttpTools.writeJson(ctx, body, keepalive, OK);
                 } else {
-                    HttpTools.writeError(ctx, t.getMessage(), INTERNAL_SERVER_ERROR);
-                    log.error("exception occured", t);
+                    writeFailure(ctx, t, keepalive);
                 }
             }
         });
     }
 
+    private static void writeFailure(ChannelHandlerContext ctx, Throwable t, boolean keepAlive) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if (cause instanceof CircuitBreakerOpenException || cause instanceof ServicePoolBusyException) {
+            // 熔断、服务池繁忙快速失败，返回结构化的错误，不打印堆栈
+            HttpTools.writeResponse(ctx, toInvokeResult(null, cause), keepAlive, SERVICE_UNAVAILABLE);
+            return;
+        }
+        if (cause instanceof IllegalArgumentException) {
+            // 类型化调用找不到方法、参数绑定失败等请求错误
+            HttpTools.writeResponse(ctx, cause.getMessage(), keepAlive, BAD_REQUEST);
+            return;
+        }
+        HttpTools.writeError(ctx, t.getMessage(), INTERNAL_SERVER_ERROR);
+        log.error("exception occured", t);
+    }
+
+    /**
+     * 批量调用：所有调用并发发出，全部完成或者到达批量超时时间后一次性返回，
+     * 返回数组和请求数组一一对应，单个调用失败不影响其他调用
+     */
+    private void doBatch(ChannelHandlerContext ctx, ProxyRequest msg) {
+        BatchItem[] items;
+        try {
+            items = JsonUtils.parseObject(msg.getBody(), BatchItem[].class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+        ProxyConfig proxyConfig = configCenter.getProxyConfig();
+        int maxSize = proxyConfig.getBatchMaxSize() == null ? DEFAULT_BATCH_MAX_SIZE : proxyConfig.getBatchMaxSize();
+        if (items == null || items.length == 0) {
+            throw new IllegalArgumentException("batch is empty");
+        }
+        if (items.length > maxSize) {
+            throw new IllegalArgumentException("batch size " + items.length + " exceeds " + maxSize);
+        }
+        long batchTimeout = proxyConfig.getBatchTimeout() == null ? DEFAULT_BATCH_TIMEOUT : proxyConfig.getBatchTimeout();
+
+        List<CompletableFuture<InvokeResult>> futures = new ArrayList<>(items.length);
+        for (BatchItem item : items) {
+            futures.add(batchCall(item, batchTimeout));
+        }
+        TimeoutFuture<Void> deadline = new TimeoutFuture<>(batchTimeout);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((r, t) -> deadline.complete(null));
+        deadline.whenComplete((r, t) -> {
+            List<InvokeResult> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<InvokeResult> future : futures) {
+                // 到达批量超时时间还没完成的调用按超时处理
+                results.add(future.isDone() ? future.join()
+                        : new InvokeResult(ResultCode.TIMEOUT.getCode(), null, "batch timeout " + batchTimeout + "ms"));
+            }
+            try {
+                HttpTools.writeOK(ctx, BATCH_PATH, results, msg.isKeepAlive());
+            } catch (Exception e) {
+                HttpTools.writeError(ctx, e.getMessage(), INTERNAL_SERVER_ERROR);
+                log.error("serialize batch response failed", e);
+            }
+        });
+    }
+
+    private CompletableFuture<InvokeResult> batchCall(BatchItem item, long batchTimeout) {
+        try {
+            if (item == null || item.getInterfaceName() == null || item.getMethodConfig() == null) {
+                throw new IllegalArgumentException("interfaceName and methodConfig are required");
+            }
+            Route route = routeTable.route(item.getInterfaceName(), item.getGroup(), item.getVersion());
+            if (route == null) {
+                throw new IllegalArgumentException("service [" + item.getInterfaceName() + "] not found!");
+            }
+            if (!rateLimiter.tryAcquire(route.getServiceConfig(), item.getMethodConfig().getMethodName())) {
+                return CompletableFuture.completedFuture(new InvokeResult(ResultCode.REJECTED.getCode(), null,
+                        "service [" + item.getInterfaceName() + "] rate limited"));
+            }
+            if (isRawParams(route)) {
+                item.getMethodConfig().setParamValues(JsonUtils.toJsonStrings(item.getMethodConfig().getParamValues()));
+            }
+            ServiceDefinition serviceDefinition = new ServiceDefinition();
+            serviceDefinition.setServiceConfig(route.getServiceConfig());
+            serviceDefinition.setMethodConfig(item.getMethodConfig());
+            serviceDefinition.setRoute(route);
+
+            long timeout = item.getTimeout() == null ? batchTimeout : Math.min(item.getTimeout(), batchTimeout);
+            TimeoutFuture<Object> resultFuture = new TimeoutFuture<>(timeout);
+            asyncGenericInvoker.genericCall(serviceDefinition).whenComplete((r, t) -> {
+                if (t != null) {
+                    resultFuture.completeExceptionally(t);
+                } else {
+                    resultFuture.complete(r);
+                }
+            });
+            return resultFuture.handle(HttpProcessHandler::toInvokeResult);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(toInvokeResult(null, e));
+        }
+    }
+
+    private static InvokeResult toInvokeResult(Object result, Throwable t) {
+        if (t == null) {
+            return new InvokeResult(ResultCode.OK.getCode(), result, null);
+        }
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        return new InvokeResult(ResultCode.of(cause).getCode(), null, cause.getMessage());
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         cause.printStackTrace();
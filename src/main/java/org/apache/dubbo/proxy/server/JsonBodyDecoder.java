@@ -0,0 +1,134 @@
+package org.apache.dubbo.proxy.server;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.proxy.utils.AsyncJsonReader;
+import org.apache.dubbo.proxy.utils.HttpTools;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.*;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * <p> Description:
+ * <p>  替代HttpObjectAggregator，HttpContent到达时直接从ByteBuf喂给非阻塞json parser，
+ * <p>  请求结束时向后传递{@link ProxyRequest}，避免把整个body聚合后再拷贝一次
+ * <p>  有状态，每个channel一个实例
+ */
+@Slf4j
+public class JsonBodyDecoder extends ChannelInboundHandlerAdapter {
+
+    private final long maxContentLength;
+
+    private HttpRequest request;
+    private AsyncJsonReader reader;
+    private long contentLength;
+    /**
+     * 当前请求已经出错并返回了响应，丢弃剩余的content
+     */
+    private boolean discarding;
+
+    public JsonBodyDecoder(long maxContentLength) {
+        this.maxContentLength = maxContentLength;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof HttpObject)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        try {
+            if (msg instanceof HttpRequest) {
+                onRequest(ctx, (HttpRequest) msg);
+            }
+            if (msg instanceof HttpContent && !discarding) {
+                onContent(ctx, (HttpContent) msg);
+            }
+            if (msg instanceof LastHttpContent) {
+                onLastContent(ctx);
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    private void onRequest(ChannelHandlerContext ctx, HttpRequest msg) {
+        reset();
+        if (msg.decoderResult().isFailure()) {
+            fail(ctx, "bad request: " + msg.decoderResult().cause(), BAD_REQUEST);
+            return;
+        }
+        if (HttpUtil.getContentLength(msg, -1L) > maxContentLength) {
+            fail(ctx, "request body exceeds " + maxContentLength + " bytes", REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        if (HttpUtil.is100ContinueExpected(msg)) {
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        }
+        request = msg;
+        reader = new AsyncJsonReader();
+    }
+
+    private void onContent(ChannelHandlerContext ctx, HttpContent msg) {
+        if (msg.decoderResult().isFailure()) {
+            fail(ctx, "bad request: " + msg.decoderResult().cause(), BAD_REQUEST);
+            return;
+        }
+        ByteBuf content = msg.content();
+        if (!content.isReadable()) {
+            return;
+        }
+        contentLength += content.readableBytes();
+        if (contentLength > maxContentLength) {
+            fail(ctx, "request body exceeds " + maxContentLength + " bytes", REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        try {
+            reader.feed(content);
+        } catch (Exception e) {
+            log.error(request.toString(), e);
+            fail(ctx, e.getMessage(), BAD_REQUEST);
+        }
+    }
+
+    private void onLastContent(ChannelHandlerContext ctx) {
+        if (discarding) {
+            reset();
+            return;
+        }
+        ProxyRequest proxyRequest;
+        try {
+            proxyRequest = new ProxyRequest(request.uri(), HttpUtil.isKeepAlive(request), reader.finish());
+        } catch (Exception e) {
+            log.error(request.toString(), e);
+            fail(ctx, e.getMessage(), BAD_REQUEST);
+            reset();
+            return;
+        }
+        reset();
+        ctx.fireChannelRead(proxyRequest);
+    }
+
+    private void fail(ChannelHandlerContext ctx, String message, HttpResponseStatus status) {
+        discarding = true;
+        reader = null;
+        HttpTools.writeError(ctx, message, status);
+    }
+
+    private void reset() {
+        request = null;
+        reader = null;
+        contentLength = 0;
+        discarding = false;
+    }
+}
@@ -1,19 +1,34 @@
 package org.apache.dubbo.proxy.server;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.CleartextHttp2ServerUpgradeHandler;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2MultiplexCodec;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.util.AsciiString;
 import org.apache.dubbo.proxy.config.ConfigCenter;
-import org.apache.dubbo.proxy.service.AsyncGenericInvoker;
+import org.apache.dubbo.proxy.config.ProxyConfig;
+import org.apache.dubbo.proxy.route.RouteWarmer;
 import org.apache.dubbo.proxy.utils.NamingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,12 +37,19 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 @Component
 public class NettyServer {
 
+    private static final String TRANSPORT_NIO = "nio";
+    private static final String TRANSPORT_EPOLL = "epoll";
+    private static final String TRANSPORT_AUTO = "auto";
+    private static final long DEFAULT_MAX_CONTENT_LENGTH = 512 * 1024 * 1024;
+
     private Logger logger = LoggerFactory.getLogger(NettyServer.class);
     private ServerBootstrap bootstrap;
     private EventLoopGroup bossGroup;
@@ -37,24 +59,30 @@ public class NettyServer {
                     "Dubbo-proxy-starter"));
 
     private final ConfigCenter configCenter;
-    private final AsyncGenericInvoker asyncGenericInvoker;
+    private final HttpProcessHandler processHandler;
+    private final RouteWarmer routeWarmer;
 
     @Autowired
-    public NettyServer(ConfigCenter configCenter, AsyncGenericInvoker asyncGenericInvoker) {
+    public NettyServer(ConfigCenter configCenter, HttpProcessHandler processHandler, RouteWarmer routeWarmer) {
         this.configCenter = configCenter;
-        this.asyncGenericInvoker = asyncGenericInvoker;
+        this.processHandler = processHandler;
+        this.routeWarmer = routeWarmer;
     }
 
 
     @PostConstruct
     public void start() {
         serverStartor.execute(() -> {
-            init();
             try {
-                ChannelFuture f = bootstrap.bind(configCenter.getProxyConfig().getBind(),
-                        configCenter.getProxyConfig().getPort()).sync();
+                // 预热超时也监听端口，就绪前请求返回503，负载均衡和健康检查据此摘除实例
+                if (!routeWarmer.warmup()) {
+                    logger.warn("Dubbo proxy starting before services are ready, responding 503 until ready");
+                }
+                List<Channel> channels = bind();
                 logger.info("Dubbo proxy started, {}", configCenter.getProxyConfig());
-                f.channel().closeFuture().sync();
+                for (Channel channel : channels) {
+                    channel.closeFuture().sync();
+                }
                 logger.info("Dubbo proxy closed, {}", configCenter.getProxyConfig());
             } catch (InterruptedException e) {
                 logger.error("dubbo proxy start failed", e);
@@ -65,22 +93,78 @@ public class NettyServer {
 
     }
 
-    private void init() {
-        bootstrap = new ServerBootstrap();
-        // reactor模型一个acceptor线程就够了
-        bossGroup = new NioEventLoopGroup(1, new NamingThreadFactory("Dubbo-Proxy-Boss"));
+    private List<Channel> bind() throws InterruptedException {
+        ProxyConfig proxyConfig = configCenter.getProxyConfig();
+        boolean epoll = useEpoll(proxyConfig.getTransport());
+        // 只有epoll支持SO_REUSEPORT，nio模式下始终只绑定一个acceptor
+        int acceptors = epoll ? positive(proxyConfig.getAcceptors(), 1) : 1;
+        init(epoll, acceptors);
+        List<Channel> channels = new ArrayList<>(acceptors);
+        for (int i = 0; i < acceptors; i++) {
+            ChannelFuture f = bootstrap.bind(proxyConfig.getBind(), proxyConfig.getPort()).sync();
+            channels.add(f.channel());
+        }
+        logger.info("Dubbo proxy bind with {} transport, {} acceptor(s)", epoll ? TRANSPORT_EPOLL : TRANSPORT_NIO, acceptors);
+        return channels;
+    }
+
+    private boolean useEpoll(String transport) {
+        if (transport == null || TRANSPORT_NIO.equalsIgnoreCase(transport)) {
+            return false;
+        }
+        if (TRANSPORT_EPOLL.equalsIgnoreCase(transport)) {
+            if (!Epoll.isAvailable()) {
+                throw new IllegalStateException("epoll transport is not available", Epoll.unavailabilityCause());
+            }
+            return true;
+        }
+        if (TRANSPORT_AUTO.equalsIgnoreCase(transport)) {
+            if (!Epoll.isAvailable()) {
+                logger.warn("epoll transport is not available, fallback to nio", Epoll.unavailabilityCause());
+            }
+            return Epoll.isAvailable();
+        }
+        throw new IllegalArgumentException("unknown transport: " + transport);
+    }
+
+    private void init(boolean epoll, int acceptors) {
+        ProxyConfig proxyConfig = configCenter.getProxyConfig();
         // 纯异步调用 worker线程池无需太大
-        workerGroup = new NioEventLoopGroup(Runtime.getRuntime().availableProcessors() * 2,
-                new NamingThreadFactory("Dubbo-Proxy-Worker"));
-        HttpProcessHandler processHandler = new HttpProcessHandler(configCenter, asyncGenericInvoker);
+        int workerThreads = positive(proxyConfig.getWorkerThreads(), Runtime.getRuntime().availableProcessors() * 2);
+        bootstrap = new ServerBootstrap();
+        if (epoll) {
+            // 每个acceptor channel注册到一个boss线程上
+            bossGroup = new EpollEventLoopGroup(acceptors, new NamingThreadFactory("Dubbo-Proxy-Boss"));
+            workerGroup = new EpollEventLoopGroup(workerThreads, new NamingThreadFactory("Dubbo-Proxy-Worker"));
+            bootstrap.channel(EpollServerSocketChannel.class);
+            if (acceptors > 1) {
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
+        } else {
+            // reactor模型一个acceptor线程就够了
+            bossGroup = new NioEventLoopGroup(1, new NamingThreadFactory("Dubbo-Proxy-Boss"));
+            workerGroup = new NioEventLoopGroup(workerThreads, new NamingThreadFactory("Dubbo-Proxy-Worker"));
+            bootstrap.channel(NioServerSocketChannel.class);
+        }
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
-                .option(ChannelOption.SO_BACKLOG, 256)
-                .childHandler(new ProxyChannelInitializer(processHandler))
+                .option(ChannelOption.SO_BACKLOG, positive(proxyConfig.getBacklog(), 256))
+                .childHandler(new ProxyChannelInitializer(processHandler,
+                        Boolean.TRUE.equals(proxyConfig.getWireLog()) ? new LoggingHandler(NettyServer.class, LogLevel.DEBUG) : null,
+                        maxContentLength(proxyConfig),
+                        Boolean.TRUE.equals(proxyConfig.getHttp2()), positive(proxyConfig.getHttp2MaxConcurrentStreams(), 100)))
                 .childOption(ChannelOption.TCP_NODELAY, true)
                 .childOption(ChannelOption.SO_KEEPALIVE, true);
     }
 
+    private static long maxContentLength(ProxyConfig proxyConfig) {
+        Long maxContentLength = proxyConfig.getMaxContentLength();
+        return maxContentLength == null || maxContentLength <= 0 ? DEFAULT_MAX_CONTENT_LENGTH : maxContentLength;
+    }
+
+    private static int positive(Integer value, int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+
     @PreDestroy
     public void destroy() {
         if (workerGroup != null) {
@@ -96,17 +180,52 @@ public class NettyServer {
             ChannelInitializer<SocketChannel> {
 
         private HttpProcessHandler httpProcessHandler;
+        private LoggingHandler loggingHandler;
+        private long maxContentLength;
+        private boolean http2;
+        private int maxConcurrentStreams;
 
-        public ProxyChannelInitializer(HttpProcessHandler httpProcessHandler) {
+        public ProxyChannelInitializer(HttpProcessHandler httpProcessHandler, LoggingHandler loggingHandler,
+                                       long maxContentLength, boolean http2, int maxConcurrentStreams) {
             this.httpProcessHandler = httpProcessHandler;
+            this.loggingHandler = loggingHandler;
+            this.maxContentLength = maxContentLength;
+            this.http2 = http2;
+            this.maxConcurrentStreams = maxConcurrentStreams;
         }
 
         @Override
         protected void initChannel(SocketChannel ch) throws Exception {
-            ch.pipeline().addLast(
-                    new LoggingHandler(NettyServer.class, LogLevel.DEBUG),
-                    new HttpServerCodec(), new HttpObjectAggregator(512 * 1024 * 1024),
-                    httpProcessHandler);
+            ChannelPipeline pipeline = ch.pipeline();
+            if (loggingHandler != null) {
+                pipeline.addLast(loggingHandler);
+            }
+            if (!http2) {
+                pipeline.addLast(new HttpServerCodec(), new JsonBodyDecoder(maxContentLength), httpProcessHandler);
+                return;
+            }
+            // h2c：prior knowledge直接进入http2，Upgrade: h2c升级后进入http2，其余请求仍然走http1.1
+            HttpServerCodec sourceCodec = new HttpServerCodec();
+            HttpServerUpgradeHandler upgradeHandler = new HttpServerUpgradeHandler(sourceCodec, protocol ->
+                    AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)
+                            ? new Http2ServerUpgradeCodec(newHttp2Codec()) : null,
+                    (int) Math.min(maxContentLength, Integer.MAX_VALUE));
+            pipeline.addLast(new CleartextHttp2ServerUpgradeHandler(sourceCodec, upgradeHandler, newHttp2Codec()),
+                    new JsonBodyDecoder(maxContentLength), httpProcessHandler);
+        }
+
+        /**
+         * 每个http2 stream是一个子channel，和http1.1共用同一套解码和处理逻辑，多个请求复用一个连接
+         */
+        private Http2MultiplexCodec newHttp2Codec() {
+            return Http2MultiplexCodecBuilder.forServer(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ch.pipeline().addLast(new Http2StreamFrameToHttpObjectCodec(true),
+                            new JsonBodyDecoder(maxContentLength), httpProcessHandler);
+                }
+            }).initialSettings(Http2Settings.defaultSettings().maxConcurrentStreams(maxConcurrentStreams))
+                    .build();
         }
     }
 }
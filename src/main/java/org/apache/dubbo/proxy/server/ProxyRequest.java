@@ -0,0 +1,20 @@
+package org.apache.dubbo.proxy.server;
+
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * <p> Description:
+ * <p>  一个完整的http请求，body已经被解析成json token流
+ * <p>
+ */
+@Getter
+@AllArgsConstructor
+@ToString(exclude = "body")
+public class ProxyRequest {
+    private final String uri;
+    private final boolean keepAlive;
+    private final TokenBuffer body;
+}
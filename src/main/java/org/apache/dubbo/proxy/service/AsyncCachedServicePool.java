@@ -2,12 +2,15 @@ package org.apache.dubbo.proxy.service;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.common.utils.ClassUtils;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.proxy.cluster.ClusterParameters;
 import org.apache.dubbo.proxy.config.ConfigCenter;
+import org.apache.dubbo.proxy.config.ProxyConfig;
 import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.route.ServiceKey;
 import org.apache.dubbo.proxy.utils.TimeoutFuture;
 import org.apache.dubbo.rpc.service.GenericService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,9 +18,8 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Function;
 
 /**
  * <p> Description:
@@ -26,20 +28,38 @@ import java.util.concurrent.*;
  *
  * @author sunshujie 2022/4/14
  */
+@Slf4j
 @Component
 public class AsyncCachedServicePool implements AsyncServicePool {
 
+    private static final String GENERIC_DEFAULT = "true";
+    private static final String GENERIC_FALSE = "false";
+    private static final int DEFAULT_LOAD_THREADS = 10;
+    private static final int DEFAULT_LOAD_MAX_PENDING = 100;
+    private static final long DEFAULT_LOAD_FAILURE_TTL = 3000;
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final long DEFAULT_CACHE_EXPIRE = 60 * 60;
+
     private final ConfigCenter configCenter;
 
     /**
-     * mapping.services 通过配置配的服务，服务启动直接初始化好
+     * mapping.services 之外的服务使用缓存，避免服务太多占用大量资源，只有接口、分组、版本三个字段有意义。
+     * ReferenceConfig保持了到服务端的链接，是个很重的对象，淘汰后等正在进行的调用结束再销毁
      */
-    private Map<ServiceConfig, ReferenceConfig<GenericService>> mappingService;
+    private TinyLfuCache<ServiceKey, ReferenceConfig<GenericService>> serviceCache;
 
     /**
-     * mapping.services 之外的服务使用缓存，避免服务太多占用大量资源
+     * 正在创建的服务，同一个服务并发请求共用一个future，只创建一次
      */
-    private Cache<ServiceConfig, ReferenceConfig<GenericService>> serviceCache;
+    private final ConcurrentMap<ServiceKey, CompletableFuture<TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>>>> loading =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 创建失败的服务，短时间内直接失败，不再反复创建
+     */
+    private Cache<ServiceKey, Throwable> failures;
+
+    private int maxPending;
 
     private ThreadPoolExecutor serviceReferenceExecutor;
 
@@ -50,87 +70,246 @@ public class AsyncCachedServicePool implements AsyncServicePool {
 
     @PostConstruct
     public void init() {
-        serviceReferenceExecutor = new ThreadPoolExecutor(1,
-                10, 60, TimeUnit.SECONDS,
-                new ArrayBlockingQueue<>(100),
-                new NamedThreadFactory("service-reference"));
-        serviceCache = CacheBuilder
+        ProxyConfig proxyConfig = configCenter.getProxyConfig();
+        int threads = positive(proxyConfig.getServiceLoadThreads(), DEFAULT_LOAD_THREADS);
+        maxPending = positive(proxyConfig.getServiceLoadMaxPending(), DEFAULT_LOAD_MAX_PENDING);
+        long failureTtl = proxyConfig.getServiceLoadFailureTtl() == null
+                ? DEFAULT_LOAD_FAILURE_TTL : proxyConfig.getServiceLoadFailureTtl();
+        // 同时创建的服务数不超过maxPending，队列不会满
+        serviceReferenceExecutor = new ThreadPoolExecutor(threads,
+                threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxPending),
+                new NamedThreadFactory("service-reference", true));
+        serviceReferenceExecutor.allowCoreThreadTimeOut(true);
+        failures = CacheBuilder
                 .newBuilder()
-                .expireAfterAccess(60 * 60, TimeUnit.SECONDS)
-                .concurrencyLevel(Runtime.getRuntime().availableProcessors() * 2)
-                .maximumSize(1000)
-                .removalListener(new RemovalListener<ServiceConfig, ReferenceConfig<GenericService>>() {
-                    /**
-                     * ReferenceConfig保持了到服务端的链接，是个很重的对象，要注意销毁
-                     * @param notification
-                     */
-                    @Override
-                    public void onRemoval(RemovalNotification<ServiceConfig, ReferenceConfig<GenericService>> notification) {
-                        notification.getValue().destroy();
-                    }
-                })
+                .expireAfterWrite(failureTtl, TimeUnit.MILLISECONDS)
+                .maximumSize(10000)
                 .build();
-
-        mappingService = new HashMap<>();
-        Map<String, ServiceConfig> serviceMapping = configCenter.getServiceMapping();
-        for (ServiceConfig serviceConfig : serviceMapping.values()) {
-            ReferenceConfig<GenericService> referenceConfig = initReference(serviceConfig);
-            mappingService.put(serviceConfig, referenceConfig);
-        }
+        int cacheSize = positive(proxyConfig.getServiceCacheSize(), DEFAULT_CACHE_SIZE);
+        long cacheExpire = proxyConfig.getServiceCacheExpireAfterAccess() == null
+                ? DEFAULT_CACHE_EXPIRE : proxyConfig.getServiceCacheExpireAfterAccess();
+        serviceCache = new TinyLfuCache<>(cacheSize, cacheExpire, TimeUnit.SECONDS, this::destroyReference);
     }
 
     @PreDestroy
     public void destroy() {
-        for (ReferenceConfig<GenericService> services : mappingService.values()) {
-            services.destroy();
-        }
-
         serviceCache.invalidateAll();
+        serviceReferenceExecutor.shutdown();
     }
 
+    /**
+     * mapping.services 中的服务由路由表持有引用，不经过这里。
+     * 没有缓存的服务在后台线程创建，不阻塞调用线程，创建中的服务太多时返回ServicePoolBusyException。
+     * 返回的service不占用引用，可能在使用中被淘汰销毁，调用请使用invokeAsync
+     */
     @Override
     public CompletableFuture<GenericService> getAsync(ServiceConfig coordinator) {
-        ReferenceConfig<GenericService> service = mappingService.get(coordinator);
-        if (service != null) {
-            return CompletableFuture.completedFuture(service.get());
+        ServiceKey key = ServiceKey.of(coordinator);
+        TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>> node = serviceCache.acquire(key);
+        if (node != null) {
+            try {
+                return CompletableFuture.completedFuture(node.getValue().get());
+            } finally {
+                serviceCache.release(node);
+            }
+        }
+        Throwable failure = failures.getIfPresent(key);
+        if (failure != null) {
+            return failed(failure);
+        }
+        return withTimeout(asyncLoad(key, coordinator)).thenApply(loaded -> loaded.getValue().get());
+    }
+
+    /**
+     * 调用结束前占用缓存中的引用，期间被淘汰也不会销毁
+     */
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(ServiceConfig coordinator,
+                                                Function<GenericService, CompletableFuture<T>> invocation) {
+        ServiceKey key = ServiceKey.of(coordinator);
+        TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>> node = serviceCache.acquire(key);
+        if (node != null) {
+            return invoke(node, invocation);
+        }
+        Throwable failure = failures.getIfPresent(key);
+        if (failure != null) {
+            return failed(failure);
         }
+        // 刚创建就被淘汰销毁了，重新走一遍
+        return withTimeout(asyncLoad(key, coordinator)).thenCompose(loaded -> serviceCache.retain(loaded)
+                ? invoke(loaded, invocation) : invokeAsync(coordinator, invocation));
+    }
 
-        service = serviceCache.getIfPresent(coordinator);
-        if (service != null) {
-            return CompletableFuture.completedFuture(service.get());
-        } else {
-            return asyncLoad(coordinator);
+    private <T> CompletableFuture<T> invoke(TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>> node,
+                                            Function<GenericService, CompletableFuture<T>> invocation) {
+        CompletableFuture<T> future;
+        try {
+            future = invocation.apply(node.getValue().get());
+        } catch (RuntimeException e) {
+            serviceCache.release(node);
+            throw e;
         }
+        future.whenComplete((r, t) -> serviceCache.release(node));
+        return future;
     }
 
-    private CompletableFuture<GenericService> asyncLoad(ServiceConfig coordinator) {
-        final TimeoutFuture<GenericService> future = new TimeoutFuture<>(configCenter.getProxyConfig().getConnectionTimeOut());
-        serviceReferenceExecutor.execute(() -> {
-            try {
-                ReferenceConfig<GenericService> service = serviceCache.get(coordinator, new Callable<ReferenceConfig<GenericService>>() {
-                    @Override
-                    public ReferenceConfig<GenericService> call() throws Exception {
-                        ReferenceConfig<GenericService> reference = initReference(coordinator);
-                        reference.get();
-                        return reference;
-                    }
-                });
-                future.complete(service.get());
-            } catch (ExecutionException e) {
-                throw new IllegalStateException("创建服务失败：" + coordinator, e);
+    private CompletableFuture<TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>>> asyncLoad(
+            ServiceKey key, ServiceConfig coordinator) {
+        CompletableFuture<TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>>> future = loading.get(key);
+        if (future != null) {
+            return future;
+        }
+        if (loading.size() >= maxPending) {
+            return busy(coordinator);
+        }
+        CompletableFuture<TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>>> created = new CompletableFuture<>();
+        future = loading.putIfAbsent(key, created);
+        if (future != null) {
+            return future;
+        }
+        try {
+            serviceReferenceExecutor.execute(() -> load(key, coordinator, created));
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, created);
+            return busy(coordinator);
+        }
+        return created;
+    }
+
+    private void load(ServiceKey key, ServiceConfig coordinator,
+                      CompletableFuture<TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>>> future) {
+        ReferenceConfig<GenericService> reference = null;
+        try {
+            reference = initReference(coordinator);
+            reference.get();
+            // 先放进缓存再移除loading，中间来的请求不会重复创建
+            TinyLfuCache.Node<ServiceKey, ReferenceConfig<GenericService>> node = serviceCache.put(key, reference);
+            loading.remove(key, future);
+            future.complete(node);
+        } catch (Throwable e) {
+            if (reference != null) {
+                reference.destroy();
             }
+            IllegalStateException failure = new IllegalStateException("创建服务失败：" + coordinator, e);
+            failures.put(key, failure);
+            loading.remove(key, future);
+            future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * 和动态服务共用创建线程，创建中的服务太多时返回ServicePoolBusyException，不缓存失败，下次调用重新初始化
+     */
+    @Override
+    public CompletableFuture<Object> initAsync(ReferenceConfig<?> reference) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            serviceReferenceExecutor.execute(() -> {
+                try {
+                    future.complete(reference.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return failed(new ServicePoolBusyException(reference.getInterface()));
+        }
+        return future;
+    }
 
+    /**
+     * 多个请求共用创建服务的future，每个请求单独计算连接超时
+     */
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> loadFuture) {
+        final TimeoutFuture<T> future = new TimeoutFuture<>(configCenter.getProxyConfig().getConnectionTimeOut());
+        loadFuture.whenComplete((r, t) -> {
+            if (t != null) {
+                future.completeExceptionally(t);
+            } else {
+                future.complete(r);
+            }
         });
         return future;
     }
 
+    /**
+     * 销毁会关闭连接，不放在io线程上执行
+     */
+    private void destroyReference(ReferenceConfig<GenericService> reference) {
+        try {
+            serviceReferenceExecutor.execute(reference::destroy);
+        } catch (RejectedExecutionException e) {
+            reference.destroy();
+        }
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> busy(ServiceConfig coordinator) {
+        return failed(new ServicePoolBusyException(coordinator.getInterfaceName()));
+    }
+
+    public int getCacheSize() {
+        return serviceCache.size();
+    }
+
+    public long getCacheHits() {
+        return serviceCache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return serviceCache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return serviceCache.getEvictions();
+    }
+
+    private static int positive(Integer value, int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+
+    /**
+     * generic=false并且接口类能加载时创建类型化的引用，加载不到时退回泛化调用
+     */
+    @Override
+    public ReferenceConfig<?> createReference(ServiceConfig coordinator) {
+        if (!GENERIC_FALSE.equals(coordinator.getGeneric())) {
+            return initReference(coordinator);
+        }
+        Class<?> interfaceClass;
+        try {
+            interfaceClass = ClassUtils.forName(coordinator.getInterfaceName());
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("interface {} not found in classpath, fall back to generic invocation: {}",
+                    coordinator.getInterfaceName(), e.toString());
+            return initReference(coordinator);
+        }
+        ReferenceConfig<Object> reference = new ReferenceConfig<>();
+        configure(reference, coordinator);
+        reference.setInterface(interfaceClass);
+        reference.setGeneric(GENERIC_FALSE);
+        return reference;
+    }
+
     private ReferenceConfig<GenericService> initReference(ServiceConfig coordinator) {
         ReferenceConfig<GenericService> reference = new ReferenceConfig<>();
+        configure(reference, coordinator);
+        reference.setInterface(coordinator.getInterfaceName());
+        reference.setGeneric(coordinator.getGeneric() == null || GENERIC_FALSE.equals(coordinator.getGeneric())
+                ? GENERIC_DEFAULT : coordinator.getGeneric());
+        return reference;
+    }
+
+    private void configure(ReferenceConfig<?> reference, ServiceConfig coordinator) {
         reference.setApplication(configCenter.getApplicationConfig());
         reference.setGroup(coordinator.getGroup());
         reference.setVersion(coordinator.getVersion());
-        reference.setInterface(coordinator.getInterfaceName());
-        reference.setGeneric("true");
         reference.setAsync(true);
         reference.setCheck(false);
         reference.setRetries(coordinator.getRetries());
@@ -143,6 +322,6 @@ public class AsyncCachedServicePool implements AsyncServicePool {
         reference.setUrl(coordinator.getUrl());
         reference.setLoadbalance(coordinator.getLoadbalance());
         reference.setConnections(coordinator.getConnections());
-        return reference;
+        reference.setParameters(ClusterParameters.of(coordinator));
     }
 }
@@ -1,8 +1,15 @@
 package org.apache.dubbo.proxy.service;
 
-import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
 import org.apache.dubbo.proxy.entity.ServiceDefinition;
+import org.apache.dubbo.proxy.log.AccessLog;
+import org.apache.dubbo.proxy.metadata.MethodSignatures;
+import org.apache.dubbo.proxy.metrics.ProxyMetrics;
+import org.apache.dubbo.proxy.route.Route;
+import org.apache.dubbo.proxy.route.ServiceKey;
+import org.apache.dubbo.proxy.utils.ResultCode;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.service.GenericService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,28 +17,158 @@ import org.springframework.stereotype.Component;
 
 import java.util.concurrent.CompletableFuture;
 
-@Slf4j
 @Component
 public class AsyncGenericInvoker {
 
 
     private final AsyncServicePool asyncServicePool;
+    private final RequestCoalescer requestCoalescer;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final ProxyMetrics proxyMetrics;
+    private final AccessLog accessLog;
+    private final MethodSignatures methodSignatures;
 
     @Autowired
-    public AsyncGenericInvoker(AsyncServicePool asyncServicePool) {
+    public AsyncGenericInvoker(AsyncServicePool asyncServicePool, RequestCoalescer requestCoalescer,
+                               CircuitBreakerRegistry circuitBreakerRegistry, ProxyMetrics proxyMetrics,
+                               AccessLog accessLog, MethodSignatures methodSignatures) {
         this.asyncServicePool = asyncServicePool;
+        this.requestCoalescer = requestCoalescer;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.proxyMetrics = proxyMetrics;
+        this.accessLog = accessLog;
+        this.methodSignatures = methodSignatures;
     }
 
     public CompletableFuture<Object> genericCall(ServiceDefinition serviceDefinition) {
-        CompletableFuture<GenericService> serviceFuture = asyncServicePool.getAsync(serviceDefinition.getServiceConfig());
+        String interfaceName = serviceDefinition.getServiceConfig().getInterfaceName();
+        String methodName = serviceDefinition.getMethodConfig().getMethodName();
+        long start = System.nanoTime();
+        CompletableFuture<Object> future;
+        try {
+            future = coalesceCall(serviceDefinition);
+        } catch (RuntimeException e) {
+            long duration = System.nanoTime() - start;
+            proxyMetrics.record(interfaceName, methodName, duration, ResultCode.of(e));
+            accessLog.log(serviceDefinition, duration, e);
+            throw e;
+        }
+        future.whenComplete((r, t) -> {
+            long duration = System.nanoTime() - start;
+            proxyMetrics.record(interfaceName, methodName, duration, t == null ? ResultCode.OK : ResultCode.of(t));
+            accessLog.log(serviceDefinition, duration, t);
+        });
+        return future;
+    }
+
+    /**
+     * 熔断在合并之内，合并到已有调用上的请求不占用熔断许可，一次上游调用只统计一次结果
+     */
+    private CompletableFuture<Object> breakerCall(ServiceDefinition serviceDefinition) {
+        ServiceConfig serviceConfig = serviceDefinition.getServiceConfig();
         MethodConfig methodConfig = serviceDefinition.getMethodConfig();
-        return serviceFuture.thenCompose(svc -> {
-            log.info("dubbo generic invoking: {}", serviceDefinition);
-            RpcContext.getContext().setAttachments(methodConfig.getAttachments());
-            svc.$invoke(methodConfig.getMethodName(),
-                    methodConfig.getParamTypes(), methodConfig.getParamValues());
-            return RpcContext.getContext().getCompletableFuture();
+        CircuitBreaker breaker = circuitBreakerRegistry.breakerOf(serviceConfig, methodConfig.getMethodName());
+        if (breaker == null) {
+            return resolveCall(serviceDefinition);
+        }
+        int permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            future.completeExceptionally(new CircuitBreakerOpenException(breaker.getName(), breaker.retryAfter()));
+            return future;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Object> future;
+        try {
+            future = resolveCall(serviceDefinition);
+        } catch (RuntimeException e) {
+            // 同步抛出的都是请求本身的问题，还没有调用provider
+            breaker.release(permit);
+            throw e;
+        }
+        future.whenComplete((r, t) -> {
+            ResultCode code = t == null ? ResultCode.OK : ResultCode.of(t);
+            if (isHealthFailure(code) || isProviderResponse(code)) {
+                breaker.onComplete(permit, System.nanoTime() - start, isHealthFailure(code));
+            } else {
+                breaker.release(permit);
+            }
         });
+        return future;
+    }
+
+    /**
+     * 超时、网络错误说明服务不健康
+     */
+    private static boolean isHealthFailure(ResultCode code) {
+        return code == ResultCode.TIMEOUT || code == ResultCode.NETWORKERROR;
+    }
+
+    /**
+     * provider正常返回了结果，业务异常也说明服务是健康的。
+     * 其余的(参数错误、序列化失败、方法找不到、服务池繁忙等)和服务是否健康无关，不计入熔断统计
+     */
+    private static boolean isProviderResponse(ResultCode code) {
+        return code == ResultCode.OK || code == ResultCode.BIZERROR;
+    }
+
+    private CompletableFuture<Object> coalesceCall(ServiceDefinition serviceDefinition) {
+        ServiceConfig serviceConfig = serviceDefinition.getServiceConfig();
+        MethodConfig methodConfig = serviceDefinition.getMethodConfig();
+        MethodPolicy policy = serviceConfig.policyOf(methodConfig.getMethodName());
+        if (policy != null && Boolean.TRUE.equals(policy.getCoalesce())) {
+            return requestCoalescer.coalesce(new RequestKey(serviceConfig, methodConfig),
+                    () -> breakerCall(serviceDefinition));
+        }
+        return breakerCall(serviceDefinition);
+    }
+
+    /**
+     * 请求没有填写paramTypes时从方法签名缓存补全，类型化调用的服务从接口类上解析，不需要补全
+     */
+    private CompletableFuture<Object> resolveCall(ServiceDefinition serviceDefinition) {
+        MethodConfig methodConfig = serviceDefinition.getMethodConfig();
+        Route route = serviceDefinition.getRoute();
+        if (methodConfig.getParamTypes() != null || !methodSignatures.isEnabled()
+                || (route != null && route.getTyped() != null)) {
+            return invoke(serviceDefinition);
+        }
+        ServiceKey key = route != null ? route.getKey() : ServiceKey.of(serviceDefinition.getServiceConfig());
+        Object[] paramValues = methodConfig.getParamValues();
+        return methodSignatures.paramTypes(key, methodConfig.getMethodName(), paramValues == null ? 0 : paramValues.length)
+                .thenCompose(paramTypes -> {
+                    methodConfig.setParamTypes(paramTypes);
+                    return invoke(serviceDefinition);
+                });
+    }
+
+    private CompletableFuture<Object> invoke(ServiceDefinition serviceDefinition) {
+        Route route = serviceDefinition.getRoute();
+        MethodConfig methodConfig = serviceDefinition.getMethodConfig();
+        if (route == null || !route.isMapped()) {
+            // 动态服务由服务池在调用期间占用引用
+            return asyncServicePool.invokeAsync(serviceDefinition.getServiceConfig(), svc -> invoke(svc, methodConfig));
+        }
+        // 记录路由上正在进行的调用，配置重新加载后旧的引用等调用结束再销毁
+        route.acquire();
+        CompletableFuture<Object> future;
+        try {
+            TypedService typed = route.getTyped();
+            future = typed != null ? route.proxy(asyncServicePool).thenCompose(proxy -> typed.invoke(proxy, methodConfig))
+                    : route.service(asyncServicePool).thenCompose(svc -> invoke(svc, methodConfig));
+        } catch (RuntimeException e) {
+            route.release();
+            throw e;
+        }
+        future.whenComplete((r, t) -> route.release());
+        return future;
+    }
+
+    private static CompletableFuture<Object> invoke(GenericService svc, MethodConfig methodConfig) {
+        RpcContext.getContext().setAttachments(methodConfig.getAttachments());
+        svc.$invoke(methodConfig.getMethodName(),
+                methodConfig.getParamTypes(), methodConfig.getParamValues());
+        return RpcContext.getContext().getCompletableFuture();
     }
 
 }
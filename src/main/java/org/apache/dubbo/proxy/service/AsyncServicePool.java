@@ -1,9 +1,11 @@
 package org.apache.dubbo.proxy.service;
 
+import org.apache.dubbo.config.ReferenceConfig;
 import org.apache.dubbo.proxy.entity.ServiceConfig;
 import org.apache.dubbo.rpc.service.GenericService;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * <p> Description:
@@ -19,6 +21,31 @@ public interface AsyncServicePool {
      * @return
      */
     CompletableFuture<GenericService> getAsync(ServiceConfig coordinator);
+
+    /**
+     * 获取service并执行一次调用，调用结束前service不会被销毁
+     * @param coordinator
+     * @param invocation 使用service发起调用
+     * @return 调用结果
+     */
+    default <T> CompletableFuture<T> invokeAsync(ServiceConfig coordinator,
+                                                 Function<GenericService, CompletableFuture<T>> invocation) {
+        return getAsync(coordinator).thenCompose(invocation);
+    }
+
+    /**
+     * 按配置创建一个引用，生命周期由调用方管理，用完要destroy
+     * @param coordinator
+     * @return 还没有get过的ReferenceConfig，generic=false时是类型化的引用，否则get得到GenericService
+     */
+    ReferenceConfig<?> createReference(ServiceConfig coordinator);
+
+    /**
+     * 在后台线程中get一个createReference创建的引用，初始化invoker时不阻塞调用线程
+     * @param reference
+     * @return get的结果，GenericService或者接口代理
+     */
+    CompletableFuture<Object> initAsync(ReferenceConfig<?> reference);
 }
 
 
@@ -0,0 +1,222 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.proxy.entity.CircuitBreakerConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> Description:
+ * <p>  熔断器，closed -> open -> half-open -> closed
+ * <p>  统计窗口按秒分桶，每个桶用LongAdder计数，状态切换用CAS，调用路径上没有锁
+ */
+public class CircuitBreaker {
+
+    public static final int CLOSED = 0;
+    public static final int OPEN = 1;
+    public static final int HALF_OPEN = 2;
+    /**
+     * tryAcquire不放行时的返回值
+     */
+    public static final int REJECTED = -1;
+
+    private static final int DEFAULT_FAILURE_RATE = 50;
+    private static final int DEFAULT_SLOW_CALL_RATE = 100;
+    private static final long DEFAULT_SLOW_CALL_DURATION = 1000;
+    private static final int DEFAULT_MINIMUM_CALLS = 20;
+    private static final int DEFAULT_WINDOW = 10;
+    private static final long DEFAULT_WAIT_DURATION = 5000;
+    private static final int DEFAULT_HALF_OPEN_CALLS = 5;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long waitNanos;
+    private final int halfOpenCalls;
+    private final Bucket[] buckets;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+    private volatile long openedAt;
+    /**
+     * 半开状态剩余可放行的请求数
+     */
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    /**
+     * 半开状态已经成功的请求数
+     */
+    private final AtomicInteger halfOpenSuccess = new AtomicInteger();
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this.name = name;
+        this.config = config;
+        this.failureRateThreshold = or(config.getFailureRateThreshold(), DEFAULT_FAILURE_RATE);
+        this.slowCallRateThreshold = or(config.getSlowCallRateThreshold(), DEFAULT_SLOW_CALL_RATE);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(
+                config.getSlowCallDuration() == null ? DEFAULT_SLOW_CALL_DURATION : config.getSlowCallDuration());
+        this.minimumCalls = or(config.getMinimumCalls(), DEFAULT_MINIMUM_CALLS);
+        this.waitNanos = TimeUnit.MILLISECONDS.toNanos(
+                config.getWaitDuration() == null ? DEFAULT_WAIT_DURATION : config.getWaitDuration());
+        this.halfOpenCalls = or(config.getHalfOpenCalls(), DEFAULT_HALF_OPEN_CALLS);
+        this.buckets = new Bucket[or(config.getWindow(), DEFAULT_WINDOW)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getState() {
+        return state.get();
+    }
+
+    /**
+     * 是否放行，放行后必须用返回的许可调用{@link #onComplete(int, long, boolean)}或{@link #release(int)}
+     *
+     * @return 放行时返回放行时的状态(CLOSED或HALF_OPEN)作为许可，只有HALF_OPEN的许可算探测请求；不放行返回REJECTED
+     */
+    public int tryAcquire() {
+        for (; ; ) {
+            int current = state.get();
+            if (current == CLOSED) {
+                return CLOSED;
+            }
+            if (current == HALF_OPEN) {
+                return acquireProbe() ? HALF_OPEN : REJECTED;
+            }
+            if (System.nanoTime() - openedAt < waitNanos) {
+                return REJECTED;
+            }
+            if (state.compareAndSet(OPEN, HALF_OPEN)) {
+                // 抢到状态切换的请求就是第一个探测请求
+                halfOpenSuccess.set(0);
+                halfOpenPermits.set(halfOpenCalls - 1);
+                return HALF_OPEN;
+            }
+        }
+    }
+
+    private boolean acquireProbe() {
+        for (; ; ) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 熔断还要多久(ms)进入半开状态
+     */
+    public long retryAfter() {
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(waitNanos - (System.nanoTime() - openedAt)), 0);
+    }
+
+    /**
+     * 调用结束，记录成功或失败
+     *
+     * @param permit tryAcquire返回的许可，半开状态只统计探测请求，熔断前放行的请求在熔断后返回的结果丢弃
+     */
+    public void onComplete(int permit, long durationNanos, boolean failure) {
+        boolean slow = durationNanos >= slowCallNanos;
+        int current = state.get();
+        if (permit == HALF_OPEN) {
+            if (current != HALF_OPEN) {
+                return;
+            }
+            if (failure || slow) {
+                open(HALF_OPEN);
+            } else if (halfOpenSuccess.incrementAndGet() >= halfOpenCalls && state.compareAndSet(HALF_OPEN, CLOSED)) {
+                reset();
+            }
+            return;
+        }
+        if (current != CLOSED) {
+            return;
+        }
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        bucketOf(second).record(failure, slow);
+
+        long total = 0;
+        long failures = 0;
+        long slows = 0;
+        for (Bucket bucket : buckets) {
+            if (bucket.second.get() > second - buckets.length) {
+                total += bucket.total.sum();
+                failures += bucket.failures.sum();
+                slows += bucket.slows.sum();
+            }
+        }
+        if (total >= minimumCalls
+                && (failures * 100 >= failureRateThreshold * total || slows * 100 >= slowCallRateThreshold * total)) {
+            open(CLOSED);
+        }
+    }
+
+    /**
+     * 调用结果和服务是否健康无关(例如请求参数错误)，不计入统计，半开状态归还探测名额
+     */
+    public void release(int permit) {
+        if (permit == HALF_OPEN && state.get() == HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    private void open(int from) {
+        if (state.compareAndSet(from, OPEN)) {
+            openedAt = System.nanoTime();
+        }
+    }
+
+    private void reset() {
+        for (Bucket bucket : buckets) {
+            bucket.second.set(Long.MIN_VALUE);
+        }
+    }
+
+    private Bucket bucketOf(long second) {
+        Bucket bucket = buckets[(int) Math.floorMod(second, (long) buckets.length)];
+        long old = bucket.second.get();
+        // 桶过期了，抢到的线程负责清零，并发下少量计数误差可以接受
+        if (old != second && bucket.second.compareAndSet(old, second)) {
+            bucket.total.reset();
+            bucket.failures.reset();
+            bucket.slows.reset();
+        }
+        return bucket;
+    }
+
+    private static int or(Integer value, int defaultValue) {
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+
+    private static class Bucket {
+        final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+        final LongAdder total = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder slows = new LongAdder();
+
+        void record(boolean failure, boolean slow) {
+            total.increment();
+            if (failure) {
+                failures.increment();
+            }
+            if (slow) {
+                slows.increment();
+            }
+        }
+    }
+}
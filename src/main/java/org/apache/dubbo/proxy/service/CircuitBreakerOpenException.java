@@ -0,0 +1,22 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * <p> Description:
+ * <p>  熔断期间快速失败抛出的异常，按限流异常处理
+ * <p>
+ */
+public class CircuitBreakerOpenException extends RpcException {
+
+    private final long retryAfter;
+
+    public CircuitBreakerOpenException(String name, long retryAfter) {
+        super(LIMIT_EXCEEDED_EXCEPTION, "circuit breaker of [" + name + "] is open, retry after " + retryAfter + "ms");
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
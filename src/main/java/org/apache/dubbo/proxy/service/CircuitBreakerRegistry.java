@@ -0,0 +1,59 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.proxy.entity.CircuitBreakerConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p> Description:
+ * <p>  熔断器注册表，方法单独配置了策略的每个方法一个熔断器，否则整个接口共用一个熔断器
+ * <p>  配置变化后重建熔断器
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    /**
+     * interfaceName -> methodName -> 熔断器，接口级别的熔断器key为空字符串
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, CircuitBreaker>> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * 没有开启熔断返回null
+     */
+    public CircuitBreaker breakerOf(ServiceConfig serviceConfig, String methodName) {
+        Map<String, MethodPolicy> methods = serviceConfig.getMethods();
+        MethodPolicy methodPolicy = methods == null ? null : methods.get(methodName);
+        MethodPolicy policy = methodPolicy == null ? serviceConfig.getPolicy() : methodPolicy;
+        CircuitBreakerConfig config = policy == null ? null : policy.getCircuitBreaker();
+        if (config == null || !Boolean.TRUE.equals(config.getEnabled())) {
+            return null;
+        }
+        String key = methodPolicy == null ? "" : methodName;
+        ConcurrentMap<String, CircuitBreaker> serviceBreakers = breakers.get(serviceConfig.getInterfaceName());
+        if (serviceBreakers == null) {
+            serviceBreakers = breakers.computeIfAbsent(serviceConfig.getInterfaceName(), k -> new ConcurrentHashMap<>());
+        }
+        CircuitBreaker breaker = serviceBreakers.get(key);
+        if (breaker == null || breaker.getConfig() != config) {
+            String name = key.isEmpty() ? serviceConfig.getInterfaceName() : serviceConfig.getInterfaceName() + "#" + key;
+            breaker = serviceBreakers.compute(key, (k, old) ->
+                    old != null && old.getConfig() == config ? old : new CircuitBreaker(name, config));
+        }
+        return breaker;
+    }
+
+    public List<CircuitBreaker> getBreakers() {
+        List<CircuitBreaker> result = new ArrayList<>();
+        for (ConcurrentMap<String, CircuitBreaker> serviceBreakers : breakers.values()) {
+            result.addAll(serviceBreakers.values());
+        }
+        return result;
+    }
+}
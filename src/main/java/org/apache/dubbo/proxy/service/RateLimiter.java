@@ -0,0 +1,74 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> Description:
+ * <p>  按接口和按方法限流，接口限流使用mapping.services.xxx.policy中的配置，
+ * <p>  方法限流使用mapping.services.xxx.methods.方法名 中的配置，两个都要拿到令牌才放行
+ * <p>  每次都和当前配置比较，配置变化后令牌桶速率随之调整
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * interfaceName -> methodName -> 令牌桶，接口级别的令牌桶key为空字符串
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, TokenBucket>> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public boolean tryAcquire(ServiceConfig serviceConfig, String methodName) {
+        MethodPolicy servicePolicy = serviceConfig.getPolicy();
+        Map<String, MethodPolicy> methods = serviceConfig.getMethods();
+        MethodPolicy methodPolicy = methods == null ? null : methods.get(methodName);
+        boolean serviceLimited = isLimited(servicePolicy);
+        boolean methodLimited = isLimited(methodPolicy);
+        if (!serviceLimited && !methodLimited) {
+            return true;
+        }
+        ConcurrentMap<String, TokenBucket> serviceBuckets = buckets.get(serviceConfig.getInterfaceName());
+        if (serviceBuckets == null) {
+            serviceBuckets = buckets.computeIfAbsent(serviceConfig.getInterfaceName(), k -> new ConcurrentHashMap<>());
+        }
+        if (methodLimited && !bucketOf(serviceBuckets, methodName, methodPolicy).tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        // 方法拿到了令牌但接口没拿到，方法的令牌就浪费了，限流场景下可以接受
+        if (serviceLimited && !bucketOf(serviceBuckets, "", servicePolicy).tryAcquire()) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private static boolean isLimited(MethodPolicy policy) {
+        return policy != null && policy.getRateLimit() != null && policy.getRateLimit() > 0;
+    }
+
+    private static TokenBucket bucketOf(ConcurrentMap<String, TokenBucket> serviceBuckets, String key, MethodPolicy policy) {
+        double rate = policy.getRateLimit();
+        // burst默认为一秒的令牌数
+        int burst = policy.getRateBurst() == null ? (int) Math.ceil(rate) : policy.getRateBurst();
+        TokenBucket bucket = serviceBuckets.get(key);
+        if (bucket == null) {
+            bucket = serviceBuckets.computeIfAbsent(key, k -> new TokenBucket(rate, burst));
+        }
+        if (!bucket.sameLimit(rate, burst)) {
+            bucket.update(rate, burst);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,72 @@
+package org.apache.dubbo.proxy.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p> Description:
+ * <p>  single-flight：相同的请求在上一次调用返回之前只会发起一次上游调用，所有请求共享同一个future
+ * <p>  调用返回后立即移除，不缓存结果
+ */
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<RequestKey, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * 合并到已有调用上的请求数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 真正发起上游调用的请求数
+     */
+    private final LongAdder misses = new LongAdder();
+
+    public CompletableFuture<Object> coalesce(RequestKey key, Supplier<CompletableFuture<Object>> call) {
+        CompletableFuture<Object> future = inflight.get(key);
+        if (future != null) {
+            hits.increment();
+            return future;
+        }
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        future = inflight.putIfAbsent(key, leader);
+        if (future != null) {
+            hits.increment();
+            return future;
+        }
+        misses.increment();
+        try {
+            call.get().whenComplete((r, t) -> {
+                // 先移除再完成，保证之后进来的请求会发起新的调用
+                inflight.remove(key, leader);
+                if (t != null) {
+                    leader.completeExceptionally(t);
+                } else {
+                    leader.complete(r);
+                }
+            });
+        } catch (Throwable t) {
+            inflight.remove(key, leader);
+            leader.completeExceptionally(t);
+        }
+        return leader;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getInflight() {
+        return inflight.size();
+    }
+}
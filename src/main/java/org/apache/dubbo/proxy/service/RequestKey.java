@@ -0,0 +1,74 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p> Description:
+ * <p>  一次调用的标识：服务坐标 + 方法 + 参数 + attachments，相同key的调用结果相同（幂等方法）
+ * <p>  hash在构造时算好，参数按值比较，Map参数的hash与key的顺序无关
+ */
+public final class RequestKey {
+    private final String interfaceName;
+    private final String group;
+    private final String version;
+    private final String methodName;
+    private final String[] paramTypes;
+    private final Object[] paramValues;
+    private final Object attachments;
+    private final int hash;
+
+    public RequestKey(ServiceConfig serviceConfig, MethodConfig methodConfig) {
+        this.interfaceName = serviceConfig.getInterfaceName();
+        this.group = serviceConfig.getGroup();
+        this.version = serviceConfig.getVersion();
+        this.methodName = methodConfig.getMethodName();
+        this.paramTypes = methodConfig.getParamTypes();
+        this.paramValues = methodConfig.getParamValues();
+        this.attachments = methodConfig.getAttachments();
+        int h = Objects.hash(interfaceName, group, version, methodName, attachments);
+        h = 31 * h + Arrays.hashCode(paramTypes);
+        h = 31 * h + Arrays.deepHashCode(paramValues);
+        this.hash = h;
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey that = (RequestKey) o;
+        return hash == that.hash
+                && Objects.equals(interfaceName, that.interfaceName)
+                && Objects.equals(group, that.group)
+                && Objects.equals(version, that.version)
+                && Objects.equals(methodName, that.methodName)
+                && Arrays.equals(paramTypes, that.paramTypes)
+                && Arrays.deepEquals(paramValues, that.paramValues)
+                && Objects.equals(attachments, that.attachments);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return interfaceName + ":" + group + ":" + version + "#" + methodName;
+    }
+}
@@ -0,0 +1,88 @@
+package org.apache.dubbo.proxy.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p> Description:
+ * <p>  按方法配置的响应缓存，缓存的是序列化好的json，命中时既不调用dubbo也不需要再序列化
+ * <p>  每个接口的每个方法一个缓存，按条数淘汰，写入后cacheTtl过期
+ */
+@Component
+public class ResponseCache {
+
+    private static final long DEFAULT_CACHE_SIZE = 1000;
+
+    /**
+     * interfaceName -> methodName -> 缓存
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, MethodCache>> caches = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public static boolean isEnabled(MethodPolicy policy) {
+        return policy != null && policy.getCacheTtl() != null && policy.getCacheTtl() > 0;
+    }
+
+    public byte[] get(RequestKey key, MethodPolicy policy) {
+        byte[] value = cacheOf(key, policy).getIfPresent(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(RequestKey key, MethodPolicy policy, byte[] json) {
+        cacheOf(key, policy).put(key, json);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Cache<RequestKey, byte[]> cacheOf(RequestKey key, MethodPolicy policy) {
+        ConcurrentMap<String, MethodCache> methodCaches = caches.get(key.getInterfaceName());
+        if (methodCaches == null) {
+            methodCaches = caches.computeIfAbsent(key.getInterfaceName(), k -> new ConcurrentHashMap<>());
+        }
+        long ttl = policy.getCacheTtl();
+        long size = policy.getCacheSize() == null ? DEFAULT_CACHE_SIZE : policy.getCacheSize();
+        MethodCache methodCache = methodCaches.get(key.getMethodName());
+        // 配置变化后丢弃旧缓存
+        if (methodCache == null || methodCache.ttl != ttl || methodCache.size != size) {
+            methodCache = methodCaches.compute(key.getMethodName(), (k, old) ->
+                    old != null && old.ttl == ttl && old.size == size ? old : new MethodCache(ttl, size));
+        }
+        return methodCache.cache;
+    }
+
+    private static class MethodCache {
+        final long ttl;
+        final long size;
+        final Cache<RequestKey, byte[]> cache;
+
+        MethodCache(long ttl, long size) {
+            this.ttl = ttl;
+            this.size = size;
+            this.cache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                    .maximumSize(size)
+                    .concurrencyLevel(Runtime.getRuntime().availableProcessors() * 2)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.rpc.RpcException;
+
+/**
+ * <p> Description:
+ * <p>  正在创建的服务太多，服务池拒绝创建新的服务，按限流异常处理
+ * <p>
+ */
+public class ServicePoolBusyException extends RpcException {
+
+    public ServicePoolBusyException(String interfaceName) {
+        super(LIMIT_EXCEEDED_EXCEPTION, "too many services loading, reject loading [" + interfaceName + "]");
+    }
+}
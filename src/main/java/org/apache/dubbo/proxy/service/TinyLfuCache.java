@@ -0,0 +1,232 @@
+package org.apache.dubbo.proxy.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * <p> Description:
+ * <p>  W-TinyLFU淘汰的缓存：新加入的先进窗口区(LRU，约1%)，窗口满了最久没访问的进入主区，
+ * <p>  主区也满了时和主区最久没访问的比较访问频率，频率低的淘汰，偶尔访问一次的服务挤不掉常用的服务。
+ * <p>  value按引用计数销毁：缓存自己持有一个引用，每次调用acquire/release，被淘汰后等调用都结束才销毁。
+ * <p>  读不加锁，写入和淘汰加锁后扫描全部节点找LRU，只适合容量不大、写入很少的场景
+ */
+final class TinyLfuCache<K, V> {
+
+    /**
+     * 最多每隔这么久扫描一次过期节点
+     */
+    private static final long EXPIRE_CHECK_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final Consumer<V> destroyer;
+    private final int windowMax;
+    private final int mainMax;
+    private final long expireAfterAccessNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 以下由lock保护
+     */
+    private int windowSize;
+    private int mainSize;
+
+    private volatile long nextExpireCheck;
+
+    /**
+     * @param destroyer 引用计数归零时调用，可能在调用release的线程上执行
+     */
+    TinyLfuCache(int maximumSize, long expireAfterAccess, TimeUnit unit, Consumer<V> destroyer) {
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.mainMax = Math.max(1, maximumSize - windowMax);
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.destroyer = destroyer;
+        this.nextExpireCheck = System.nanoTime() + EXPIRE_CHECK_NANOS;
+    }
+
+    /**
+     * 查找并占用，用完必须release
+     *
+     * @return 没有缓存或已经过期返回null
+     */
+    Node<K, V> acquire(K key) {
+        sketch.increment(key.hashCode());
+        Node<K, V> node = data.get(key);
+        long now = System.nanoTime();
+        if (node != null && now - node.accessTime < expireAfterAccessNanos && retain(node)) {
+            node.accessTime = now;
+            hits.increment();
+            expireIfNeeded(now);
+            return node;
+        }
+        misses.increment();
+        expireIfNeeded(now);
+        return null;
+    }
+
+    /**
+     * 再占用一次已经拿到的节点，节点已经销毁返回false
+     */
+    boolean retain(Node<K, V> node) {
+        for (; ; ) {
+            int refs = node.refs.get();
+            if (refs <= 0) {
+                return false;
+            }
+            if (node.refs.compareAndSet(refs, refs + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release(Node<K, V> node) {
+        if (node.refs.decrementAndGet() == 0) {
+            destroyer.accept(node.value);
+        }
+    }
+
+    /**
+     * 放入新加载的value，同一个key已有的节点被替换
+     */
+    Node<K, V> put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value, System.nanoTime());
+        lock.lock();
+        try {
+            Node<K, V> old = data.put(key, node);
+            if (old != null) {
+                detach(old);
+                release(old);
+            }
+            windowSize++;
+            evictLocked();
+        } finally {
+            lock.unlock();
+        }
+        return node;
+    }
+
+    void invalidateAll() {
+        lock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    detach(node);
+                    release(node);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void evictLocked() {
+        while (windowSize > windowMax) {
+            Node<K, V> candidate = lru(true, null);
+            candidate.window = false;
+            windowSize--;
+            mainSize++;
+            if (mainSize <= mainMax) {
+                continue;
+            }
+            Node<K, V> victim = lru(false, candidate);
+            // 频率相同时保留主区的，新来的要比被淘汰的更常用才能进入
+            if (victim != null && sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                evict(victim);
+            } else {
+                evict(candidate);
+            }
+        }
+    }
+
+    private Node<K, V> lru(boolean window, Node<K, V> exclude) {
+        Node<K, V> lru = null;
+        for (Node<K, V> node : data.values()) {
+            if (node.window == window && node != exclude && (lru == null || node.accessTime - lru.accessTime < 0)) {
+                lru = node;
+            }
+        }
+        return lru;
+    }
+
+    private void expireIfNeeded(long now) {
+        if (now - nextExpireCheck < 0 || !lock.tryLock()) {
+            return;
+        }
+        try {
+            nextExpireCheck = now + EXPIRE_CHECK_NANOS;
+            for (Node<K, V> node : data.values()) {
+                if (now - node.accessTime >= expireAfterAccessNanos) {
+                    evict(node);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        if (data.remove(node.key, node)) {
+            detach(node);
+            evictions.increment();
+            release(node);
+        }
+    }
+
+    private void detach(Node<K, V> node) {
+        if (node.window) {
+            windowSize--;
+        } else {
+            mainSize--;
+        }
+    }
+
+    static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        /**
+         * 缓存自己持有一个引用
+         */
+        private final AtomicInteger refs = new AtomicInteger(1);
+        private volatile long accessTime;
+        /**
+         * 在窗口区还是主区，由lock保护
+         */
+        private boolean window = true;
+
+        Node(K key, V value, long accessTime) {
+            this.key = key;
+            this.value = value;
+            this.accessTime = accessTime;
+        }
+
+        V getValue() {
+            return value;
+        }
+    }
+}
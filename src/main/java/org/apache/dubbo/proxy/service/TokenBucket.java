@@ -0,0 +1,74 @@
+package org.apache.dubbo.proxy.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p> Description:
+ * <p>  无锁令牌桶，用GCRA算法实现：只记录一个"理论到达时间"，一次CAS完成取令牌，
+ * <p>  不需要后台线程补充令牌，netty worker线程之间也不会竞争锁
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * 理论到达时间，now之前表示桶是满的
+     */
+    private final AtomicLong tat = new AtomicLong(System.nanoTime());
+
+    private volatile Limit limit;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.limit = new Limit(permitsPerSecond, burst);
+    }
+
+    public boolean tryAcquire() {
+        Limit limit = this.limit;
+        long now = System.nanoTime();
+        for (; ; ) {
+            long current = tat.get();
+            long next = Math.max(current, now) + limit.interval;
+            if (next - now > limit.tolerance) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 运行时调整速率，已经取走的令牌不受影响
+     */
+    public void update(double permitsPerSecond, int burst) {
+        this.limit = new Limit(permitsPerSecond, burst);
+    }
+
+    public boolean sameLimit(double permitsPerSecond, int burst) {
+        Limit limit = this.limit;
+        return limit.permitsPerSecond == permitsPerSecond && limit.burst == burst;
+    }
+
+    private static class Limit {
+        final double permitsPerSecond;
+        final int burst;
+        /**
+         * 每个令牌的时间间隔
+         */
+        final long interval;
+        /**
+         * 允许透支的时间，也就是桶容量
+         */
+        final long tolerance;
+
+        Limit(double permitsPerSecond, int burst) {
+            if (permitsPerSecond <= 0) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(burst, 1);
+            this.interval = Math.max((long) (NANOS_PER_SECOND / permitsPerSecond), 1);
+            this.tolerance = interval * this.burst;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.apache.dubbo.proxy.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import org.apache.dubbo.common.utils.ReflectUtils;
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.utils.JsonUtils;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.service.GenericException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p> Description:
+ * <p>  类型化调用：接口类在代理的classpath上时直接调用接口的代理对象，参数由jackson从请求体的token绑定成声明的参数类型，
+ * <p>  返回的POJO直接序列化，省去GenericService按类型名查找、PojoUtils转换和Map形式的结果。
+ * <p>  每个方法预先生成MethodHandle，同一个接口只解析一次
+ */
+public final class TypedService {
+
+    private static final ConcurrentMap<Class<?>, TypedService> SERVICES = new ConcurrentHashMap<>();
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Class<?> interfaceClass;
+
+    /**
+     * 方法名 -> 各个重载
+     */
+    private final Map<String, TypedMethod[]> methods = new HashMap<>();
+
+    public static TypedService of(Class<?> interfaceClass) {
+        return SERVICES.computeIfAbsent(interfaceClass, TypedService::new);
+    }
+
+    private TypedService(Class<?> interfaceClass) {
+        this.interfaceClass = interfaceClass;
+        Map<String, List<TypedMethod>> overloads = new HashMap<>();
+        for (Method method : interfaceClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            overloads.computeIfAbsent(method.getName(), name -> new ArrayList<>()).add(new TypedMethod(method));
+        }
+        for (Map.Entry<String, List<TypedMethod>> entry : overloads.entrySet()) {
+            methods.put(entry.getKey(), entry.getValue().toArray(new TypedMethod[0]));
+        }
+    }
+
+    /**
+     * @param proxy 接口的dubbo代理，异步调用
+     * @param methodConfig paramValues中每个参数是JsonTokens，批量调用中是已经解析好的对象
+     */
+    public CompletableFuture<Object> invoke(Object proxy, MethodConfig methodConfig) {
+        TypedMethod method = resolve(methodConfig);
+        Object[] args = method.bind(methodConfig.getParamValues());
+        RpcContext.getContext().setAttachments(methodConfig.getAttachments());
+        Object result;
+        try {
+            result = method.handle.invokeExact(proxy, args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new GenericException(e);
+        }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Object> future = result instanceof CompletableFuture
+                ? (CompletableFuture<Object>) result : RpcContext.getContext().getCompletableFuture();
+        CompletableFuture<Object> typedFuture = new CompletableFuture<>();
+        future.whenComplete((r, t) -> {
+            if (t == null) {
+                typedFuture.complete(r);
+            } else {
+                typedFuture.completeExceptionally(toBizException(t));
+            }
+        });
+        return typedFuture;
+    }
+
+    /**
+     * 和泛化调用保持一致，provider抛出的业务异常包装成GenericException，超时、网络等异常不变
+     */
+    private static Throwable toBizException(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if (cause instanceof RpcException || cause instanceof TimeoutException || cause instanceof GenericException) {
+            return cause;
+        }
+        return new GenericException(cause);
+    }
+
+    private TypedMethod resolve(MethodConfig methodConfig) {
+        TypedMethod[] candidates = methods.get(methodConfig.getMethodName());
+        if (candidates == null) {
+            throw new IllegalArgumentException("method " + methodConfig.getMethodName() + " not found in " + interfaceClass.getName());
+        }
+        String[] paramTypes = methodConfig.getParamTypes();
+        int paramCount = methodConfig.getParamValues() == null ? 0 : methodConfig.getParamValues().length;
+        TypedMethod found = null;
+        for (TypedMethod candidate : candidates) {
+            if (paramTypes != null ? candidate.matches(paramTypes) : candidate.paramTypes.length == paramCount) {
+                if (found != null) {
+                    throw new IllegalArgumentException("paramTypes is required, method " + methodConfig.getMethodName()
+                            + " has more than one overload with " + paramCount + " params");
+                }
+                found = candidate;
+                if (paramTypes != null) {
+                    break;
+                }
+            }
+        }
+        if (found == null || found.paramTypes.length != paramCount) {
+            throw new IllegalArgumentException("method " + methodConfig.getMethodName()
+                    + (paramTypes == null ? "" : Arrays.toString(paramTypes))
+                    + " with " + paramCount + " params not found in " + interfaceClass.getName());
+        }
+        return found;
+    }
+
+    private static final class TypedMethod {
+        final JavaType[] paramTypes;
+        /**
+         * Class.getName()形式，数组是[Ljava.lang.String;
+         */
+        final String[] paramClassNames;
+        /**
+         * dubbo泛化调用的形式，数组是java.lang.String[]
+         */
+        final String[] paramTypeNames;
+        final MethodHandle handle;
+
+        TypedMethod(Method method) {
+            Class<?>[] classes = method.getParameterTypes();
+            java.lang.reflect.Type[] genericTypes = method.getGenericParameterTypes();
+            paramTypes = new JavaType[classes.length];
+            paramClassNames = new String[classes.length];
+            paramTypeNames = new String[classes.length];
+            for (int i = 0; i < classes.length; i++) {
+                paramTypes[i] = JsonUtils.constructType(genericTypes[i]);
+                paramClassNames[i] = classes[i].getName();
+                paramTypeNames[i] = ReflectUtils.getName(classes[i]);
+            }
+            try {
+                handle = MethodHandles.publicLookup().unreflect(method)
+                        .asSpreader(Object[].class, classes.length)
+                        .asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("method " + method + " is not accessible", e);
+            }
+        }
+
+        boolean matches(String[] types) {
+            return Arrays.equals(types, paramTypeNames) || Arrays.equals(types, paramClassNames);
+        }
+
+        Object[] bind(Object[] values) {
+            Object[] args = new Object[paramTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = JsonUtils.convertValue(values[i], paramTypes[i]);
+            }
+            return args;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.apache.dubbo.proxy.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * <p> Description:
+ * <p>  基于jackson非阻塞parser的json读取器，http body按chunk到达时逐段解析成token，
+ * <p>  不需要把整个body聚合成一个byte[]
+ */
+public class AsyncJsonReader {
+
+    private static final int SCRATCH_SIZE = 8192;
+
+    private final JsonParser parser = JsonUtils.createNonBlockingParser();
+    private final ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    private final TokenBuffer tokens = JsonUtils.createTokenBuffer();
+
+    /**
+     * direct buffer没有底层数组，只能分段拷贝到这里，heap buffer直接喂底层数组
+     */
+    private byte[] scratch;
+
+    public void feed(ByteBuf buf) throws IOException {
+        if (buf.hasArray()) {
+            int offset = buf.arrayOffset() + buf.readerIndex();
+            feed(buf.array(), offset, offset + buf.readableBytes());
+            return;
+        }
+        if (scratch == null) {
+            scratch = new byte[SCRATCH_SIZE];
+        }
+        int index = buf.readerIndex();
+        int end = buf.writerIndex();
+        while (index < end) {
+            int len = Math.min(scratch.length, end - index);
+            buf.getBytes(index, scratch, 0, len);
+            feed(scratch, 0, len);
+            index += len;
+        }
+    }
+
+    /**
+     * 输入结束，返回完整的token流，body为空时token流也为空
+     */
+    public TokenBuffer finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        parser.close();
+        return tokens;
+    }
+
+    private void feed(byte[] bytes, int start, int end) throws IOException {
+        feeder.feedInput(bytes, start, end);
+        // parser会持有输入数组的引用，必须把这次喂进去的数据消费完才能复用scratch
+        drain();
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+        }
+    }
+}
@@ -5,4 +5,12 @@ public class Constants {
     public static final String GROUP_KEY = "group";
     public static final String PATH_SEPARATOR = "/";
     public static final String PROVIDER_SIDE = "provider";
+    /**
+     * 批量调用的请求路径
+     */
+    public static final String BATCH_PATH = "/_batch";
+    /**
+     * 参数以json文本透传的泛化调用方式
+     */
+    public static final String GENERIC_GSON = "gson";
 }
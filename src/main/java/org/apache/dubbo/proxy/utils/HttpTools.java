@@ -1,11 +1,12 @@
 package org.apache.dubbo.proxy.utils;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.*;
-import io.netty.util.CharsetUtil;
 
 import static io.netty.channel.ChannelFutureListener.CLOSE;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
@@ -19,21 +20,54 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
  * @author sunshujie 2022/4/14
  */
 public class HttpTools {
+
+    private static final ResponseSizeEstimator SIZE_ESTIMATOR = new ResponseSizeEstimator();
+
     public static void writeOK(ChannelHandlerContext ctx, Object result, boolean keepAlive) {
-        writeResponse(ctx, result, keepAlive, OK);
+        writeResponse(ctx, null, result, keepAlive, OK);
+    }
+
+    /**
+     * @param sizeKey 按这个key统计最近的响应大小来预分配buffer，一般是接口+方法
+     */
+    public static void writeOK(ChannelHandlerContext ctx, String sizeKey, Object result, boolean keepAlive) {
+        writeResponse(ctx, sizeKey, result, keepAlive, OK);
     }
 
     public static void writeError(ChannelHandlerContext ctx, String message, HttpResponseStatus status) {
-        writeResponse(ctx, message, false, status);
+        writeResponse(ctx, null, message, false, status);
     }
 
     public static void writeResponse(ChannelHandlerContext ctx, Object result, boolean keepAlive, HttpResponseStatus status) {
-        ByteBuf bf = result == null ? Unpooled.EMPTY_BUFFER :
-                Unpooled.copiedBuffer(JsonUtils.writeValueAsString(result), CharsetUtil.UTF_8);
+        writeResponse(ctx, null, result, keepAlive, status);
+    }
+
+    public static void writeResponse(ChannelHandlerContext ctx, String sizeKey, Object result, boolean keepAlive, HttpResponseStatus status) {
+        ByteBuf bf = result == null ? Unpooled.EMPTY_BUFFER : serialize(ctx, sizeKey, result);
+        writeJson(ctx, bf, keepAlive, status);
+    }
+
+    /**
+     * 写出已经序列化好的json
+     */
+    public static void writeJson(ChannelHandlerContext ctx, ByteBuf bf, boolean keepAlive, HttpResponseStatus status) {
+        write(ctx, bf, "application/json; charset=UTF-8", keepAlive, status);
+    }
+
+    /**
+     * 写出纯文本，比如prometheus的指标
+     */
+    public static void writeText(ChannelHandlerContext ctx, CharSequence text, String contentType, boolean keepAlive) {
+        ByteBuf bf = ctx.alloc().ioBuffer(ByteBufUtil.utf8MaxBytes(text));
+        ByteBufUtil.writeUtf8(bf, text);
+        write(ctx, bf, contentType, keepAlive, OK);
+    }
+
+    private static void write(ChannelHandlerContext ctx, ByteBuf bf, String contentType, boolean keepAlive, HttpResponseStatus status) {
         FullHttpResponse response = new DefaultFullHttpResponse(
                 HTTP_1_1, status, bf);
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json; charset=UTF-8");
-        HttpUtil.setContentLength(response, response.content().readableBytes());
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(response, bf.readableBytes());
         if (keepAlive) {
             HttpUtil.setKeepAlive(response, true);
         }
@@ -43,4 +77,19 @@ public class HttpTools {
             writeFuture.addListener(CLOSE);
         }
     }
+
+    /**
+     * jackson直接序列化到channel分配的池化direct buffer，不再经过String和unpooled buffer两次拷贝
+     */
+    public static ByteBuf serialize(ChannelHandlerContext ctx, String sizeKey, Object result) {
+        ByteBuf bf = ctx.alloc().ioBuffer(SIZE_ESTIMATOR.estimate(sizeKey));
+        try {
+            JsonUtils.writeValue(new ByteBufOutputStream(bf), result);
+        } catch (RuntimeException e) {
+            bf.release();
+            throw e;
+        }
+        SIZE_ESTIMATOR.record(sizeKey, bf.readableBytes());
+        return bf;
+    }
 }
@@ -0,0 +1,86 @@
+package org.apache.dubbo.proxy.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * <p> Description:
+ * <p>  请求体中一个json值的token序列，类型化调用确定了方法之后直接从token按参数类型绑定，不经过json文本。
+ * <p>  按token内容比较，可以作为合并请求和响应缓存的key
+ */
+public final class JsonTokens {
+
+    private final TokenBuffer tokens;
+    private int hash;
+
+    JsonTokens(TokenBuffer tokens) {
+        this.tokens = tokens;
+    }
+
+    public JsonParser parser() {
+        return tokens.asParser();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JsonTokens)) {
+            return false;
+        }
+        JsonTokens that = (JsonTokens) o;
+        if (hashCode() != that.hashCode()) {
+            return false;
+        }
+        try (JsonParser a = parser(); JsonParser b = that.parser()) {
+            for (; ; ) {
+                JsonToken token = a.nextToken();
+                if (token != b.nextToken()) {
+                    return false;
+                }
+                if (token == null) {
+                    return true;
+                }
+                if (hasText(token) && !Objects.equals(a.getText(), b.getText())) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            try (JsonParser p = parser()) {
+                JsonToken token;
+                while ((token = p.nextToken()) != null) {
+                    h = 31 * h + token.ordinal();
+                    if (hasText(token)) {
+                        h = 31 * h + Objects.hashCode(p.getText());
+                    }
+                }
+            } catch (IOException e) {
+                h = System.identityHashCode(this);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    private static boolean hasText(JsonToken token) {
+        return token.isScalarValue() || token == JsonToken.FIELD_NAME;
+    }
+
+    @Override
+    public String toString() {
+        return JsonUtils.writeValueAsString(tokens);
+    }
+}
@@ -1,10 +1,24 @@
 package org.apache.dubbo.proxy.utils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.dubbo.proxy.entity.MethodConfig;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <p> Description:
@@ -16,6 +30,18 @@ import java.io.IOException;
 public class JsonUtils {
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    /**
+     * paramValues中的每个参数保留原始json文本，用于generic=gson的透传调用
+     */
+    private static final ObjectMapper RAW_PARAMS_MAPPER = new ObjectMapper()
+            .addMixIn(MethodConfig.class, RawParamsMixIn.class);
+
+    /**
+     * paramValues中的每个参数保留成JsonTokens，用于类型化调用
+     */
+    private static final ObjectMapper TOKEN_PARAMS_MAPPER = new ObjectMapper()
+            .addMixIn(MethodConfig.class, TokenParamsMixIn.class);
+
     public static String writeValueAsString(Object object) {
         try {
             return MAPPER.writeValueAsString(object);
@@ -32,6 +58,14 @@ public class JsonUtils {
         }
     }
 
+    public static void writeValue(OutputStream out, Object object) {
+        try {
+            MAPPER.writeValue(out, object);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static <T> T parseObject(String jsonString, Class<T> type) {
         try {
             if (StringUtils.isEmpty(jsonString)) {
@@ -43,6 +77,27 @@ public class JsonUtils {
         }
     }
 
+    /**
+     * 按声明的参数类型绑定一个参数，JsonTokens直接从token绑定，其余(批量调用中已经解析好的Map、List等)用convertValue转换
+     */
+    public static Object convertValue(Object value, JavaType type) {
+        try {
+            if (value instanceof JsonTokens) {
+                return MAPPER.readValue(((JsonTokens) value).parser(), type);
+            }
+            return MAPPER.convertValue(value, type);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("cannot convert " + value + " to " + type, e);
+        }
+    }
+
+    /**
+     * 带泛型参数的类型，例如List&lt;User&gt;，用于按声明的类型绑定方法参数
+     */
+    public static JavaType constructType(Type type) {
+        return MAPPER.getTypeFactory().constructType(type);
+    }
+
     public static <T> T parseObject(byte[] jsonBytes, Class<T> type) {
         try {
             if (StringUtils.isEmpty(jsonBytes)) {
@@ -53,4 +108,122 @@ public class JsonUtils {
             throw new RuntimeException(e);
         }
     }
+
+    public static <T> T parseObject(TokenBuffer tokens, Class<T> type) {
+        try {
+            if (tokens == null || tokens.firstToken() == null) {
+                return null;
+            }
+            return MAPPER.readValue(tokens.asParser(), type);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 创建一个非阻塞的json parser，数据可以分段喂给parser
+     */
+    public static JsonParser createNonBlockingParser() {
+        try {
+            return MAPPER.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static TokenBuffer createTokenBuffer() {
+        return new TokenBuffer(MAPPER, false);
+    }
+
+    /**
+     * 和parseObject(tokens, MethodConfig.class)相同，但paramValues中每个参数是原始的json文本，不转换成Map
+     */
+    public static MethodConfig parseRawParams(TokenBuffer tokens) {
+        try {
+            if (tokens == null || tokens.firstToken() == null) {
+                return null;
+            }
+            return RAW_PARAMS_MAPPER.readValue(tokens.asParser(), MethodConfig.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 和parseObject(tokens, MethodConfig.class)相同，但paramValues中每个参数是JsonTokens，由TypedService按参数类型绑定
+     */
+    public static MethodConfig parseTokenParams(TokenBuffer tokens) {
+        try {
+            if (tokens == null || tokens.firstToken() == null) {
+                return null;
+            }
+            return TOKEN_PARAMS_MAPPER.readValue(tokens.asParser(), MethodConfig.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 已经解析成对象的参数重新序列化成json文本，批量调用等没有原始文本的场景使用
+     */
+    public static Object[] toJsonStrings(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        Object[] jsonValues = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            jsonValues[i] = writeValueAsString(values[i]);
+        }
+        return jsonValues;
+    }
+
+    private abstract static class RawParamsMixIn {
+        @JsonDeserialize(using = RawJsonArrayDeserializer.class)
+        abstract void setParamValues(Object[] paramValues);
+    }
+
+    private abstract static class TokenParamsMixIn {
+        @JsonDeserialize(using = TokenArrayDeserializer.class)
+        abstract void setParamValues(Object[] paramValues);
+    }
+
+    /**
+     * 把json数组的每个元素原样复制成字符串，不构建中间对象
+     */
+    private static class RawJsonArrayDeserializer extends JsonDeserializer<Object[]> {
+        @Override
+        public Object[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.getCurrentToken() != JsonToken.START_ARRAY) {
+                return (Object[]) ctxt.handleUnexpectedToken(Object[].class, p);
+            }
+            List<String> values = new ArrayList<>();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                SegmentedStringWriter writer = new SegmentedStringWriter(MAPPER.getFactory()._getBufferRecycler());
+                try (JsonGenerator generator = MAPPER.getFactory().createGenerator(writer)) {
+                    generator.copyCurrentStructure(p);
+                }
+                values.add(writer.getAndClear());
+            }
+            return values.toArray();
+        }
+    }
+
+    /**
+     * 把json数组的每个元素复制成JsonTokens，不构建中间对象
+     */
+    private static class TokenArrayDeserializer extends JsonDeserializer<Object[]> {
+        @Override
+        public Object[] deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.getCurrentToken() != JsonToken.START_ARRAY) {
+                return (Object[]) ctxt.handleUnexpectedToken(Object[].class, p);
+            }
+            List<JsonTokens> values = new ArrayList<>();
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                TokenBuffer buffer = new TokenBuffer(p, ctxt);
+                buffer.copyCurrentStructure(p);
+                values.add(new JsonTokens(buffer));
+            }
+            return values.toArray();
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package org.apache.dubbo.proxy.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p> Description:
+ * <p>  按key（一般是接口+方法）记录最近响应的大小，用来预估响应ByteBuf的初始容量，
+ * <p>  避免大响应序列化过程中ByteBuf反复扩容拷贝
+ */
+public class ResponseSizeEstimator {
+
+    private static final int DEFAULT_SIZE = 256;
+    /**
+     * 预估值只是初始容量，超过时ByteBuf自己会扩容，这里限制一下避免偶发的超大响应长期占用大buffer
+     */
+    private static final int MAX_SIZE = 4 * 1024 * 1024;
+
+    private final ConcurrentMap<String, AtomicInteger> sizes = new ConcurrentHashMap<>();
+
+    public int estimate(String key) {
+        if (key == null) {
+            return DEFAULT_SIZE;
+        }
+        AtomicInteger size = sizes.get(key);
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        // 留1/8的余量，大部分响应一次分配就够
+        int estimate = size.get();
+        return Math.min(estimate + (estimate >> 3), MAX_SIZE);
+    }
+
+    public void record(String key, int actual) {
+        if (key == null) {
+            return;
+        }
+        AtomicInteger size = sizes.get(key);
+        if (size == null) {
+            size = sizes.computeIfAbsent(key, k -> new AtomicInteger(actual));
+        }
+        // 指数移动平均，新值占1/4，并发下丢失一次更新无所谓
+        int old = size.get();
+        size.lazySet(old + ((Math.min(actual, MAX_SIZE) - old) >> 2));
+    }
+}
@@ -1,5 +1,11 @@
 package org.apache.dubbo.proxy.utils;
 
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.service.GenericException;
+
+import java.util.concurrent.TimeoutException;
+
 public enum ResultCode {
 
     OK(0),
@@ -10,7 +16,11 @@ public enum ResultCode {
 
     NETWORKERROR(3),
 
-    SERIALIZATION(4);
+    SERIALIZATION(4),
+
+    UNKNOWN(5),
+
+    REJECTED(6);
 
 
     private int code;
@@ -22,4 +32,44 @@ public enum ResultCode {
     public int getCode() {
         return code;
     }
+
+    /**
+     * 根据调用异常归类，异步调用的异常经常被CompletionException、RpcException层层包装，需要沿着cause链找
+     */
+    public static ResultCode of(Throwable t) {
+        if (t == null) {
+            return OK;
+        }
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RpcException) {
+                RpcException e = (RpcException) cause;
+                if (e.isTimeout()) {
+                    return TIMEOUT;
+                }
+                if (e.isBiz()) {
+                    return BIZERROR;
+                }
+                if (e.isNetwork()) {
+                    return NETWORKERROR;
+                }
+                if (e.isSerialization()) {
+                    return SERIALIZATION;
+                }
+                if (e.isLimitExceed()) {
+                    return REJECTED;
+                }
+            } else if (cause instanceof TimeoutException
+                    || cause instanceof org.apache.dubbo.remoting.TimeoutException) {
+                return TIMEOUT;
+            } else if (cause instanceof RemotingException) {
+                return NETWORKERROR;
+            } else if (cause instanceof GenericException) {
+                return BIZERROR;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return UNKNOWN;
+    }
 }
@@ -16,10 +16,16 @@
  */
 package org.apache.dubbo.rpc.cluster.support;
 
+import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.Version;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.proxy.cluster.ClusterTimer;
+import org.apache.dubbo.proxy.cluster.HedgeBudget;
+import org.apache.dubbo.proxy.cluster.LatencyWindow;
+import org.apache.dubbo.proxy.cluster.RetryBackoff;
+import org.apache.dubbo.proxy.cluster.RetryBudget;
 import org.apache.dubbo.rpc.*;
 import org.apache.dubbo.rpc.cluster.Directory;
 import org.apache.dubbo.rpc.cluster.LoadBalance;
@@ -31,9 +37,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.dubbo.common.constants.CommonConstants.DEFAULT_RETRIES;
 import static org.apache.dubbo.common.constants.CommonConstants.RETRIES_KEY;
+import static org.apache.dubbo.proxy.cluster.ClusterParameters.HEDGE_BUDGET_KEY;
+import static org.apache.dubbo.proxy.cluster.ClusterParameters.HEDGE_DELAY_KEY;
+import static org.apache.dubbo.proxy.cluster.ClusterParameters.HEDGE_PERCENTILE_KEY;
+import static org.apache.dubbo.proxy.cluster.ClusterParameters.RETRY_BACKOFF_KEY;
+import static org.apache.dubbo.proxy.cluster.ClusterParameters.RETRY_BACKOFF_MAX_KEY;
+import static org.apache.dubbo.proxy.cluster.ClusterParameters.RETRY_BUDGET_KEY;
 
 /**
  * When invoke fails, log the initial error and retry other invokers (retry n times, which means at most n different invokers will be invoked)
@@ -43,18 +58,29 @@ import static org.apache.dubbo.common.constants.CommonConstants.RETRIES_KEY;
  *     原版通过for循环实现重试是不支持异步的，https://github.com/apache/dubbo/issues/6965，搜到一个issue，
  *     这么明显的bug竟然没人修复。 ClusterInvoker整个接口设计对于异步都是有问题的，
  *     先临时修复FailoverClusterInvoker
+ * <p>
+ *     配置了hedge-delay或hedge-percentile的方法(只能是幂等方法)支持对冲请求：第一次调用超过延迟没有返回时，
+ *     向另一个invoker再发一次，先成功的结果生效，另一个取消，对冲请求数受HedgeBudget限制
+ * <p>
+ *     重试次数受RetryBudget限制，重试前按RetryBackoff随机退避，在时间轮上发起，不在dubbo的回调线程上递归调用
  * <a href="http://en.wikipedia.org/wiki/Failover">Failover</a>
  */
 public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(FailoverClusterInvoker.class);
 
+    /**
+     * 配置了hedge-percentile的方法最近的响应时间
+     */
+    private final ConcurrentMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private volatile HedgeBudget hedgeBudget;
+    private volatile RetryBudget retryBudget;
+
     public FailoverClusterInvoker(Directory<T> directory) {
         super(directory);
     }
 
     @Override
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public Result doInvoke(Invocation invocation, final List<Invoker<T>> invokers, LoadBalance loadbalance) throws RpcException {
         List<Invoker<T>> copyInvokers = invokers;
         checkInvokers(copyInvokers, invocation);
@@ -66,85 +92,261 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
         List<Invoker<T>> invoked = new ArrayList<Invoker<T>>(copyInvokers.size()); // invoked invokers.
         Set<String> providers = new HashSet<String>(len);
-        RetryHelper retryHelper = new RetryHelper(len, invocation, loadbalance, copyInvokers, methodName, invoked, providers);
+        RetryHelper<T> retryHelper = new RetryHelper<>(len, invocation, loadbalance, copyInvokers, methodName, invoked, providers);
         retryHelper.future = future;
+        double percentile = getUrl().getMethodParameter(methodName, HEDGE_PERCENTILE_KEY, 0d);
+        if (percentile > 0) {
+            retryHelper.latency = latencies.computeIfAbsent(methodName, m -> new LatencyWindow());
+        }
+        long hedgeDelay = hedgeDelayMicros(methodName, percentile, retryHelper.latency);
+        if (hedgeDelay > 0 && copyInvokers.size() > 1) {
+            retryHelper.hedgeDelay = hedgeDelay;
+            hedgeBudget().onRequest();
+        }
         doRequest(retryHelper);
         return asyncRpcResult;
     }
 
-    private void doRequest(RetryHelper retryHelper) {
-        //Reselect before retry to avoid a change of candidate `invokers`.
-        //NOTE: if `invokers` changed, then `invoked` also lose accuracy.
-        if (retryHelper.tried > 0) {
-            checkWhetherDestroyed();
-            List<Invoker<T>> copyInvokers = list(retryHelper.invocation);
-            // check again
-            checkInvokers(copyInvokers, retryHelper.invocation);
-            logger.warn("Failed to invoke the method "
-                    + retryHelper.methodName + " in the service " + getInterface().getName()
-                    + ". Tried " + retryHelper.tried + " times of the providers " + retryHelper.providers
-                    + " (" + retryHelper.providers.size() + "/" + retryHelper.copyInvokers.size()
-                    + ") from the registry " + directory.getUrl().getAddress()
-                    + " on the consumer " + NetUtils.getLocalHost() + " using the dubbo version "
-                    + Version.getVersion() + ". Last error is: "
-                    + retryHelper.le.getMessage());
+    /**
+     * 配置了百分位并且样本足够时取观测到的百分位，否则取固定的hedge-delay，都没有时不对冲
+     */
+    private long hedgeDelayMicros(String methodName, double percentile, LatencyWindow latency) {
+        if (latency != null) {
+            long observed = latency.percentile(percentile);
+            if (observed > 0) {
+                return observed;
+            }
+        }
+        return TimeUnit.MILLISECONDS.toMicros(getUrl().getMethodParameter(methodName, HEDGE_DELAY_KEY, 0L));
+    }
+
+    private HedgeBudget hedgeBudget() {
+        HedgeBudget budget = hedgeBudget;
+        if (budget == null) {
+            URL url = getUrl();
+            budget = new HedgeBudget(url.getParameter(HEDGE_BUDGET_KEY, HedgeBudget.DEFAULT_PERCENT));
+            hedgeBudget = budget;
         }
+        return budget;
+    }
 
-        retryHelper.tried++;
+    private RetryBudget retryBudget() {
+        RetryBudget budget = retryBudget;
+        if (budget == null) {
+            budget = new RetryBudget(getUrl().getParameter(RETRY_BUDGET_KEY, RetryBudget.DEFAULT_PERCENT));
+            retryBudget = budget;
+        }
+        return budget;
+    }
 
+    /**
+     * 退避之后在时间轮线程上重试，重新选择invoker失败时直接结束调用
+     */
+    private void scheduleRetry(RetryHelper<T> retryHelper) {
+        URL url = getUrl();
+        long backoff = RetryBackoff.delayMillis(retryHelper.tried,
+                url.getMethodParameter(retryHelper.methodName, RETRY_BACKOFF_KEY, RetryBackoff.DEFAULT_BASE_MILLIS),
+                url.getMethodParameter(retryHelper.methodName, RETRY_BACKOFF_MAX_KEY, RetryBackoff.DEFAULT_MAX_MILLIS));
+        ClusterTimer.schedule(timeout -> {
+            try {
+                doRequest(retryHelper);
+            } catch (Throwable e) {
+                synchronized (retryHelper) {
+                    retryHelper.done = true;
+                }
+                retryHelper.future.completeExceptionally(e instanceof RpcException ? e : new RpcException(e.getMessage(), e));
+            } finally {
+                RpcContext.removeContext();
+            }
+        }, backoff, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 对冲请求在时间轮线程上发起，第一次调用已经返回、已经对冲过或者没有别的invoker时放弃。
+     * 判断和选择invoker在同一个锁里，期间第一次调用返回也不会再发出对冲
+     */
+    private void hedge(RetryHelper<T> retryHelper) {
+        Invoker<T> invoker;
+        Invocation invocation;
+        synchronized (retryHelper) {
+            if (retryHelper.done || retryHelper.hedged || retryHelper.pending == 0
+                    || retryHelper.invoked.size() >= retryHelper.copyInvokers.size()
+                    || !hedgeBudget().tryAcquire()) {
+                return;
+            }
+            retryHelper.hedged = true;
+            // 对冲请求不占用重试次数
+            retryHelper.total++;
+            try {
+                invoker = next(retryHelper);
+            } catch (RpcException e) {
+                logger.warn("Failed to hedge the method " + retryHelper.methodName + " in the service "
+                        + getInterface().getName() + ": " + e.getMessage());
+                return;
+            }
+            // 和第一次调用并发，不能共用invocation
+            invocation = new RpcInvocation(retryHelper.invocation);
+        }
+        try {
+            send(retryHelper, invoker, invocation, true);
+        } finally {
+            RpcContext.removeContext();
+        }
+    }
+
+    private void doRequest(RetryHelper<T> retryHelper) {
+        Invoker<T> invoker;
+        // 对冲时两个调用并发，修改调用状态要加锁
+        synchronized (retryHelper) {
+            //Reselect before retry to avoid a change of candidate `invokers`.
+            //NOTE: if `invokers` changed, then `invoked` also lose accuracy.
+            if (retryHelper.tried > 0) {
+                checkWhetherDestroyed();
+                List<Invoker<T>> copyInvokers = list(retryHelper.invocation);
+                // check again
+                checkInvokers(copyInvokers, retryHelper.invocation);
+                logger.warn("Failed to invoke the method "
+                        + retryHelper.methodName + " in the service " + getInterface().getName()
+                        + ". Tried " + retryHelper.tried + " times of the providers " + retryHelper.providers
+                        + " (" + retryHelper.providers.size() + "/" + retryHelper.copyInvokers.size()
+                        + ") from the registry " + directory.getUrl().getAddress()
+                        + " on the consumer " + NetUtils.getLocalHost() + " using the dubbo version "
+                        + Version.getVersion() + ". Last error is: "
+                        + retryHelper.le.getMessage());
+            }
+            invoker = next(retryHelper);
+        }
+        send(retryHelper, invoker, retryHelper.invocation, false);
+    }
+
+    /**
+     * 选择下一个invoker并记为进行中，调用方持有RetryHelper的锁
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Invoker<T> next(RetryHelper<T> retryHelper) {
+        retryHelper.tried++;
         Invoker<T> invoker = select(retryHelper.loadbalance, retryHelper.invocation, retryHelper.copyInvokers, retryHelper.invoked);
         RpcContext.getContext().setInvokers((List) retryHelper.invoked);
         retryHelper.invoked.add(invoker);
+        retryHelper.pending++;
+        return invoker;
+    }
 
-        Result result = invoker.invoke(retryHelper.invocation);
-        // org.apache.dubbo.rpc.protocol.AbstractInvoker.invoke 中设置了一个future，
-        // 这会导致async模式重试不生效，所以在invoke之后再重新设置一遍
-        RpcContext.getContext().setFuture(new FutureAdapter<>(retryHelper.future));
-        result.whenCompleteWithContext((r, t) -> {
-            if (t != null) {
-                if (t instanceof RpcException) {
-                    RpcException e = (RpcException) t;
-                    if (e.isBiz()) { // biz exception.
-                        throw e;
-                    }
-                    retryHelper.le = e;
-                } else {
-                    retryHelper.le = new RpcException(t.getMessage(), t);
-                }
+    private void send(RetryHelper<T> retryHelper, Invoker<T> invoker, Invocation invocation, boolean hedge) {
+        long start = System.nanoTime();
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RuntimeException e) {
+            if (!hedge) {
+                throw e;
+            }
+            onResponse(retryHelper, invoker, start, null, e, true);
+            return;
+        }
+        if (hedge) {
+            retryHelper.hedgeResult = result;
+            if (retryHelper.future.isDone()) {
+                // 对冲请求还在发送时第一次调用已经成功了
+                cancel(result);
+            }
+        } else {
+            retryHelper.result = result;
+            // org.apache.dubbo.rpc.protocol.AbstractInvoker.invoke 中设置了一个future，
+            // 这会导致async模式重试不生效，所以在invoke之后再重新设置一遍
+            RpcContext.getContext().setFuture(new FutureAdapter<>(retryHelper.future));
+            if (retryHelper.hedgeDelay > 0 && retryHelper.tried == 1) {
+                ClusterTimer.schedule(timeout -> hedge(retryHelper), retryHelper.hedgeDelay, TimeUnit.MICROSECONDS);
+            }
+        }
+        result.whenCompleteWithContext((r, t) -> onResponse(retryHelper, invoker, start, r, t, hedge));
+    }
+
+    private void onResponse(RetryHelper<T> retryHelper, Invoker<T> invoker, long start, Result r, Throwable t, boolean hedge) {
+        boolean retry = false;
+        RpcException biz = null;
+        synchronized (retryHelper) {
+            retryHelper.pending--;
+            if (retryHelper.done) {
+                // 对冲的另一个调用已经返回了结果
+                return;
+            }
+            if (t == null) {
+                retryHelper.done = true;
+            } else if (t instanceof RpcException && ((RpcException) t).isBiz()) { // biz exception.
+                // 不重试，也不等对冲的另一个调用
+                biz = (RpcException) t;
+                retryHelper.done = true;
+            } else {
+                retryHelper.le = t instanceof RpcException ? (RpcException) t : new RpcException(t.getMessage(), t);
                 retryHelper.providers.add(invoker.getUrl().getAddress());
                 retryHelper.retrying = true;
-
-                if (retryHelper.tried < retryHelper.total) {
-                    doRequest(retryHelper);
-                } else {
-                    RpcException rpcException = new RpcException(retryHelper.le.getCode(), "Failed to invoke the method "
-                            + retryHelper.methodName + " in the service " + getInterface().getName()
-                            + ". Tried " + retryHelper.tried + " times of the providers " + retryHelper.providers
-                            + " (" + retryHelper.providers.size() + "/" + retryHelper.copyInvokers.size()
-                            + ") from the registry " + directory.getUrl().getAddress()
-                            + " on the consumer " + NetUtils.getLocalHost() + " using the dubbo version "
-                            + Version.getVersion() + ". Last error is: "
-                            + retryHelper.le.getMessage(), retryHelper.le.getCause() != null ? retryHelper.le.getCause() : retryHelper.le);
-                    retryHelper.future.completeExceptionally(rpcException);
+                if (retryHelper.pending > 0) {
+                    // 对冲的另一个调用还没返回，等它的结果
+                    return;
                 }
-
+                retryHelper.budgetExhausted = retryHelper.tried < retryHelper.total && !retryBudget().tryRetry();
+                retry = retryHelper.tried < retryHelper.total && !retryHelper.budgetExhausted;
+                retryHelper.done = !retry;
+            }
+        }
+        if (biz != null) {
+            retryHelper.future.completeExceptionally(biz);
+            cancelOther(retryHelper, hedge);
+        } else if (t != null) {
+            if (retry) {
+                scheduleRetry(retryHelper);
             } else {
-                if (retryHelper.le != null && logger.isWarnEnabled()) {
-                    logger.warn("Although retry the method " + retryHelper.methodName
-                            + " in the service " + getInterface().getName()
-                            + " was successful by the provider " + invoker.getUrl().getAddress()
-                            + ", but there have been failed providers " + retryHelper.providers
-                            + " (" + retryHelper.providers.size() + "/" + retryHelper.copyInvokers.size()
-                            + ") from the registry " + directory.getUrl().getAddress()
-                            + " on the consumer " + NetUtils.getLocalHost()
-                            + " using the dubbo version " + Version.getVersion() + ". Last error is: "
-                            + retryHelper.le.getMessage(), retryHelper.le);
-                }
-                retryHelper.future.complete(r);
+                RpcException rpcException = new RpcException(retryHelper.le.getCode(), "Failed to invoke the method "
+                        + retryHelper.methodName + " in the service " + getInterface().getName()
+                        + ". Tried " + retryHelper.tried + " times of the providers " + retryHelper.providers
+                        + " (" + retryHelper.providers.size() + "/" + retryHelper.copyInvokers.size()
+                        + ") from the registry " + directory.getUrl().getAddress()
+                        + " on the consumer " + NetUtils.getLocalHost() + " using the dubbo version "
+                        + Version.getVersion() + (retryHelper.budgetExhausted ? ". Retry budget exhausted" : "")
+                        + ". Last error is: "
+                        + retryHelper.le.getMessage(), retryHelper.le.getCause() != null ? retryHelper.le.getCause() : retryHelper.le);
+                retryHelper.future.completeExceptionally(rpcException);
             }
-        });
 
+        } else {
+            if (retryHelper.le != null && logger.isWarnEnabled()) {
+                logger.warn("Although retry the method " + retryHelper.methodName
+                        + " in the service " + getInterface().getName()
+                        + " was successful by the provider " + invoker.getUrl().getAddress()
+                        + ", but there have been failed providers " + retryHelper.providers
+                        + " (" + retryHelper.providers.size() + "/" + retryHelper.copyInvokers.size()
+                        + ") from the registry " + directory.getUrl().getAddress()
+                        + " on the consumer " + NetUtils.getLocalHost()
+                        + " using the dubbo version " + Version.getVersion() + ". Last error is: "
+                        + retryHelper.le.getMessage(), retryHelper.le);
+            }
+            retryBudget().onSuccess();
+            if (retryHelper.latency != null) {
+                retryHelper.latency.record(System.nanoTime() - start);
+            }
+            retryHelper.future.complete((AppResponse) r);
+            cancelOther(retryHelper, hedge);
+        }
+    }
 
+    /**
+     * 对冲赢了就取消第一次调用，否则取消对冲请求
+     */
+    private static void cancelOther(RetryHelper<?> retryHelper, boolean hedge) {
+        if (retryHelper.hedged) {
+            cancel(hedge ? retryHelper.result : retryHelper.hedgeResult);
+        }
+    }
+
+    /**
+     * 取消对冲中输掉的调用，结果直接丢弃。只能取消代理这一侧的future，
+     * 请求已经发出去了，provider还会执行完，DefaultFuture等响应回来或超时后清理
+     */
+    private static void cancel(Result result) {
+        if (result instanceof AsyncRpcResult) {
+            ((AsyncRpcResult) result).getResponseFuture().cancel(false);
+        }
     }
 
     private int calculateInvokeTimes(String methodName) {
@@ -164,14 +366,34 @@ public class FailoverClusterInvoker<T> extends AbstractClusterInvoker<T> {
 
 
     /**
-     * 重试是一个调用完成再开始调用，通过CompletableFuture构成串行调用链路
-     * ，所以RetryHelper是线程安全的
+     * 重试是一个调用完成、退避之后再开始调用，通过CompletableFuture和时间轮构成串行调用链路；
+     * 对冲时会有两个调用并发，以下字段的读写都在synchronized(RetryHelper)中
      * @param <T>
      */
     private static class RetryHelper<T> {
         int tried;
         int total;
         boolean retrying;
+        /**
+         * 正在进行的调用数
+         */
+        int pending;
+        /**
+         * future已经完成，之后返回的调用直接丢弃
+         */
+        boolean done;
+        boolean hedged;
+        /**
+         * 还有重试次数，但是超出了重试预算
+         */
+        boolean budgetExhausted;
+        /**
+         * 对冲延迟(微秒)，0表示不对冲
+         */
+        long hedgeDelay;
+        LatencyWindow latency;
+        volatile Result result;
+        volatile Result hedgeResult;
         RpcException le;
         Invocation invocation;
         LoadBalance loadbalance;
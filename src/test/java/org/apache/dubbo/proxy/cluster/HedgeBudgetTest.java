@@ -0,0 +1,52 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p> Description:
+ * <p>  对冲预算按请求数存入，最多攒10个
+ */
+public class HedgeBudgetTest {
+
+    @Test
+    public void depositsPercentOfRequests() {
+        HedgeBudget budget = new HedgeBudget(10);
+        for (int i = 0; i < 9; i++) {
+            budget.onRequest();
+        }
+        assertFalse(budget.tryAcquire());
+        budget.onRequest();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    public void tokensAreCapped() {
+        HedgeBudget budget = new HedgeBudget(100);
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertEquals(10, acquireAll(budget));
+    }
+
+    @Test
+    public void zeroPercentNeverHedges() {
+        HedgeBudget budget = new HedgeBudget(0);
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertFalse(budget.tryAcquire());
+    }
+
+    private static int acquireAll(HedgeBudget budget) {
+        int acquired = 0;
+        while (budget.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,85 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p> Description:
+ * <p>  对数分桶的边界和百分位计算
+ */
+public class LatencyWindowTest {
+
+    @Test
+    public void smallValuesHaveTheirOwnBucket() {
+        for (int micros = 0; micros < 16; micros++) {
+            assertEquals(micros, LatencyWindow.bucket(micros));
+            assertEquals(micros, LatencyWindow.upperBound(micros));
+        }
+        assertEquals(0, LatencyWindow.bucket(-1));
+    }
+
+    @Test
+    public void bucketBoundaries() {
+        // 16-31之间每个桶宽2，32-63之间宽4
+        assertEquals(16, LatencyWindow.bucket(16));
+        assertEquals(16, LatencyWindow.bucket(17));
+        assertEquals(17, LatencyWindow.bucket(18));
+        assertEquals(17, LatencyWindow.upperBound(16));
+        assertEquals(23, LatencyWindow.bucket(31));
+        assertEquals(31, LatencyWindow.upperBound(23));
+        assertEquals(24, LatencyWindow.bucket(32));
+        assertEquals(24, LatencyWindow.bucket(35));
+        assertEquals(25, LatencyWindow.bucket(36));
+        assertEquals(35, LatencyWindow.upperBound(24));
+    }
+
+    @Test
+    public void everyValueFallsBetweenAdjacentUpperBounds() {
+        for (long micros = 1; micros < 1 << 20; micros += 1 + micros / 64) {
+            int bucket = LatencyWindow.bucket(micros);
+            long upper = LatencyWindow.upperBound(bucket);
+            assertTrue(micros + " <= " + upper, micros <= upper);
+            assertTrue(micros + " > " + LatencyWindow.upperBound(bucket - 1), micros > LatencyWindow.upperBound(bucket - 1));
+            // 误差不超过12.5%
+            assertTrue(micros + " -> " + upper, upper - micros <= micros / 8 + 1);
+        }
+    }
+
+    @Test
+    public void slowValuesGoToTheLastBucket() {
+        int last = LatencyWindow.bucket(Long.MAX_VALUE);
+        assertEquals(last, LatencyWindow.bucket(TimeUnit.MINUTES.toMicros(10)));
+        assertEquals(last, LatencyWindow.bucket((1L << 27) - 1));
+        assertEquals(last - 1, LatencyWindow.bucket((1L << 27) - (1L << 23) - 1));
+    }
+
+    @Test
+    public void percentileNeedsEnoughSamples() {
+        LatencyWindow window = new LatencyWindow();
+        for (int i = 0; i < 99; i++) {
+            window.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        assertEquals(-1, window.percentile(50));
+        window.record(TimeUnit.MICROSECONDS.toNanos(100));
+        assertEquals(LatencyWindow.upperBound(LatencyWindow.bucket(100)), window.percentile(50));
+    }
+
+    @Test
+    public void percentileOfMixedLatencies() {
+        LatencyWindow window = new LatencyWindow();
+        for (int i = 0; i < 90; i++) {
+            window.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            window.record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long p90 = window.percentile(90);
+        long p95 = window.percentile(95);
+        assertTrue(String.valueOf(p90), p90 >= 100 && p90 < 113);
+        assertTrue(String.valueOf(p95), p95 >= 10000 && p95 < 11250);
+    }
+}
@@ -0,0 +1,71 @@
+package org.apache.dubbo.proxy.cluster;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p> Description:
+ * <p>  重试预算的保底次数、按成功数增加的额度和窗口滑动后恢复
+ */
+public class RetryBudgetTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    public void allowsMinimumRetriesWithoutSuccesses() {
+        RetryBudget budget = new RetryBudget(20, now::get);
+        assertEquals(100, retryAll(budget));
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    public void successesAddToTheBudget() {
+        RetryBudget budget = new RetryBudget(20, now::get);
+        for (int i = 0; i < 1000; i++) {
+            budget.onSuccess();
+        }
+        assertEquals(300, retryAll(budget));
+    }
+
+    @Test
+    public void refillsAfterTheWindowRollsOver() {
+        RetryBudget budget = new RetryBudget(20, now::get);
+        assertEquals(100, retryAll(budget));
+
+        // 窗口内还没有过期的重试仍然占着预算
+        advanceSeconds(9);
+        assertFalse(budget.tryRetry());
+
+        advanceSeconds(1);
+        assertTrue(budget.tryRetry());
+        assertEquals(99, retryAll(budget));
+    }
+
+    @Test
+    public void oldSuccessesExpire() {
+        RetryBudget budget = new RetryBudget(100, now::get);
+        for (int i = 0; i < 1000; i++) {
+            budget.onSuccess();
+        }
+        advanceSeconds(10);
+        assertEquals(100, retryAll(budget));
+    }
+
+    private static int retryAll(RetryBudget budget) {
+        int retries = 0;
+        while (budget.tryRetry()) {
+            retries++;
+        }
+        return retries;
+    }
+}
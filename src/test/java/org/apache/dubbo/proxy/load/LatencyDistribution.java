@@ -0,0 +1,72 @@
+package org.apache.dubbo.proxy.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  provider的延迟分布，单位ms，格式：
+ * <p>  fixed:5 固定5ms；uniform:1-20 均匀分布；exp:5 均值5ms的指数分布；
+ * <p>  bimodal:2,200,0.01 大部分2ms，1%的请求200ms，用来模拟长尾
+ */
+public abstract class LatencyDistribution {
+
+    /**
+     * @return 这次调用的延迟(ns)
+     */
+    public abstract long sample();
+
+    public static LatencyDistribution parse(String spec) {
+        int index = spec.indexOf(':');
+        if (index < 0) {
+            throw new IllegalArgumentException("illegal latency distribution: " + spec);
+        }
+        String type = spec.substring(0, index).trim();
+        String[] args = spec.substring(index + 1).split("[-,]");
+        switch (type) {
+            case "fixed": {
+                long nanos = toNanos(args[0]);
+                return of(spec, () -> nanos);
+            }
+            case "uniform": {
+                long min = toNanos(args[0]);
+                long max = toNanos(args[1]);
+                return of(spec, () -> min + (long) (ThreadLocalRandom.current().nextDouble() * (max - min)));
+            }
+            case "exp": {
+                long mean = toNanos(args[0]);
+                return of(spec, () -> (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * mean));
+            }
+            case "bimodal": {
+                long fast = toNanos(args[0]);
+                long slow = toNanos(args[1]);
+                double slowRatio = Double.parseDouble(args[2]);
+                return of(spec, () -> ThreadLocalRandom.current().nextDouble() < slowRatio ? slow : fast);
+            }
+            default:
+                throw new IllegalArgumentException("illegal latency distribution: " + spec);
+        }
+    }
+
+    private static long toNanos(String millis) {
+        return (long) (Double.parseDouble(millis.trim()) * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static LatencyDistribution of(String spec, Sampler sampler) {
+        return new LatencyDistribution() {
+            @Override
+            public long sample() {
+                return sampler.sample();
+            }
+
+            @Override
+            public String toString() {
+                return spec;
+            }
+        };
+    }
+
+    private interface Sampler {
+        long sample();
+    }
+}
@@ -0,0 +1,183 @@
+package org.apache.dubbo.proxy.load;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Description:
+ * <p>  基于netty的http压测客户端，每个连接keep-alive串行发请求。
+ * <p>  rate为0时是闭环压测，收到响应马上发下一个；rate大于0时按固定间隔发送，
+ * <p>  延迟从计划发送时间开始算，避免coordinated omission把排队时间藏掉
+ */
+public class LoadGenerator {
+
+    /**
+     * 线程名前缀，统计分配速率时用来区分压测客户端和代理
+     */
+    public static final String THREAD_PREFIX = "load-client";
+
+    private final String host;
+    private final int port;
+    private final String path;
+    private final byte[] body;
+    private final int connections;
+    private final double rate;
+
+    private final EventLoopGroup group;
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+    private Bootstrap bootstrap;
+    private volatile LatencyRecorder recorder = new LatencyRecorder();
+    private volatile boolean running;
+
+    public LoadGenerator(String host, int port, String path, byte[] body, int connections, double rate, int threads) {
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.body = body;
+        this.connections = connections;
+        this.rate = rate;
+        this.group = new NioEventLoopGroup(threads, new DefaultThreadFactory(THREAD_PREFIX));
+    }
+
+    public void start() throws InterruptedException {
+        running = true;
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()
+                                .addLast(new HttpClientCodec())
+                                .addLast(new HttpObjectAggregator(64 * 1024 * 1024))
+                                .addLast(new ConnectionHandler());
+                    }
+                });
+        for (int i = 0; i < connections; i++) {
+            channels.add(bootstrap.connect(host, port).sync().channel());
+        }
+    }
+
+    /**
+     * 换一个新的recorder开始统计，返回之前的
+     */
+    public LatencyRecorder reset() {
+        LatencyRecorder previous = recorder;
+        recorder = new LatencyRecorder();
+        return previous;
+    }
+
+    public void stop() {
+        running = false;
+        for (Channel channel : channels) {
+            channel.close().awaitUninterruptibly();
+        }
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+    }
+
+    private FullHttpRequest newRequest() {
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, path,
+                Unpooled.wrappedBuffer(body));
+        request.headers()
+                .set(HttpHeaderNames.HOST, host + ':' + port)
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .set(HttpHeaderNames.CONTENT_LENGTH, body.length)
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        return request;
+    }
+
+    private class ConnectionHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        /**
+         * 每个连接的发送间隔(ns)，闭环压测时为0
+         */
+        private final long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * connections / rate) : 0;
+        private long intendedStart;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            intendedStart = System.nanoTime();
+            send(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            long now = System.nanoTime();
+            if (response.status().equals(HttpResponseStatus.OK)) {
+                recorder.record(now - intendedStart);
+            } else {
+                recorder.error();
+            }
+            if (!running) {
+                return;
+            }
+            if (interval == 0) {
+                intendedStart = now;
+                send(ctx);
+                return;
+            }
+            intendedStart += interval;
+            long delay = intendedStart - now;
+            if (delay > 0) {
+                ctx.executor().schedule(() -> send(ctx), delay, TimeUnit.NANOSECONDS);
+            } else {
+                send(ctx);
+            }
+        }
+
+        private void send(ChannelHandlerContext ctx) {
+            if (running) {
+                ctx.writeAndFlush(newRequest());
+            }
+        }
+
+        /**
+         * 出错时代理会关闭连接，重新连上保持并发数不变
+         */
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            channels.remove(ctx.channel());
+            if (running) {
+                bootstrap.connect(host, port).addListener((ChannelFuture future) -> {
+                    if (future.isSuccess()) {
+                        channels.add(future.channel());
+                    } else {
+                        recorder.error();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            recorder.error();
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.apache.dubbo.proxy.load;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.proxy.DubboProxyApplication;
+import org.apache.dubbo.proxy.ProxyTest;
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.utils.JsonUtils;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p> Description:
+ * <p>  单机压测，不依赖zookeeper：进程内启动直连的provider和代理，用netty客户端压代理，
+ * <p>  输出吞吐、p50/p99/p999延迟和分配速率，结果同时写到target/load-report.json方便对比。
+ * <p>  参数都是系统属性：
+ * <p>  load.providers provider数量，默认2，端口从load.providerPort(默认20880)开始
+ * <p>  load.latency provider延迟分布，多个provider用;分隔循环使用，默认exp:2，格式见{@link LatencyDistribution}
+ * <p>  load.providerThreads provider业务线程数，默认500
+ * <p>  load.connections 并发连接数，默认64
+ * <p>  load.rate 目标qps，默认0表示闭环压测
+ * <p>  load.payload 请求参数字符串的长度，默认64
+ * <p>  load.warmup/load.duration 预热和压测时间(s)，默认10/30
+ * <p>  load.proxyPort 代理端口，默认18080；其余proxy.*配置直接用-D覆盖
+ */
+public class LoadTest {
+
+    private static final String SERVICE = "test";
+
+    public static void main(String[] args) throws Exception {
+        int providers = Integer.getInteger("load.providers", 2);
+        int providerPort = Integer.getInteger("load.providerPort", 20880);
+        String[] latencies = System.getProperty("load.latency", "exp:2").split(";");
+        int providerThreads = Integer.getInteger("load.providerThreads", 500);
+        int connections = Integer.getInteger("load.connections", 64);
+        double rate = Double.parseDouble(System.getProperty("load.rate", "0"));
+        int payload = Integer.getInteger("load.payload", 64);
+        int warmup = Integer.getInteger("load.warmup", 10);
+        int duration = Integer.getInteger("load.duration", 30);
+        int proxyPort = Integer.getInteger("load.proxyPort", 18080);
+        // spring boot初始化日志之前dubbo就开始打日志了，默认是debug级别
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        List<ServiceConfig<ProxyTest>> services = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < providers; i++) {
+            LatencyDistribution latency = LatencyDistribution.parse(latencies[i % latencies.length]);
+            services.add(exportProvider(providerPort + i, providerThreads, latency));
+            urls.add("dubbo://127.0.0.1:" + (providerPort + i));
+            System.out.println("provider started on port " + (providerPort + i) + ", latency " + latency);
+        }
+
+        ConfigurableApplicationContext proxy = SpringApplication.run(DubboProxyApplication.class,
+                "--proxy.port=" + proxyPort,
+                "--application.registries[0].address=N/A",
+                "--mapping.services." + SERVICE + ".url=" + String.join(";", urls),
+                "--mapping.services." + SERVICE + ".retries=0",
+                // 多个直连url时dubbo默认用zone-aware cluster，和直连的invoker不兼容
+                "--mapping.services." + SERVICE + ".cluster=failover",
+                "--mapping.services." + SERVICE + ".timeout=10000",
+                "--logging.level.root=WARN");
+        awaitPort(proxyPort);
+
+        LoadGenerator generator = new LoadGenerator("127.0.0.1", proxyPort, "/" + SERVICE, requestBody(payload),
+                connections, rate, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        generator.start();
+        System.out.println("warming up " + warmup + "s with " + connections + " connections"
+                + (rate > 0 ? ", target " + rate + " qps" : ", closed loop"));
+        TimeUnit.SECONDS.sleep(warmup);
+
+        generator.reset();
+        ResourceSnapshot before = ResourceSnapshot.take();
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(duration);
+        LatencyRecorder recorder = generator.reset();
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        ResourceSnapshot after = ResourceSnapshot.take();
+        generator.stop();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("providers", providers);
+        report.put("latency", Arrays.asList(latencies));
+        report.put("connections", connections);
+        report.put("rate", rate);
+        report.put("payload", payload);
+        report.put("duration", seconds);
+        report.put("requests", recorder.getCount());
+        report.put("errors", recorder.getErrors());
+        report.put("throughput", recorder.getCount() / seconds);
+        report.put("meanUs", recorder.getMeanMicros());
+        report.put("p50Us", recorder.percentile(50));
+        report.put("p99Us", recorder.percentile(99));
+        report.put("p999Us", recorder.percentile(99.9));
+        report.put("maxUs", recorder.max());
+        Map<String, Long> allocated = after.allocatedSince(before);
+        for (Map.Entry<String, Long> entry : allocated.entrySet()) {
+            report.put(entry.getKey() + "AllocMBps", entry.getValue() / seconds / 1024 / 1024);
+        }
+        report.put("proxyAllocBytesPerRequest", recorder.getCount() == 0 ? 0 : allocated.get("proxy") / recorder.getCount());
+        report.put("gcCount", after.gcCount - before.gcCount);
+        report.put("gcTimeMs", after.gcTimeMillis - before.gcTimeMillis);
+
+        System.out.println();
+        for (Map.Entry<String, Object> entry : report.entrySet()) {
+            System.out.printf("%-28s %s%n", entry.getKey(), entry.getValue());
+        }
+        File output = new File("target/load-report.json");
+        output.getParentFile().mkdirs();
+        Files.write(output.toPath(), JsonUtils.writeValueAsBytes(report));
+        System.out.println("report written to " + output.getAbsolutePath());
+
+        proxy.close();
+        for (ServiceConfig<ProxyTest> service : services) {
+            service.unexport();
+        }
+        System.exit(0);
+    }
+
+    private static ServiceConfig<ProxyTest> exportProvider(int port, int threads, LatencyDistribution latency) {
+        ApplicationConfig applicationConfig = new ApplicationConfig();
+        applicationConfig.setQosEnable(false);
+        applicationConfig.setName("dubbo-proxy");
+        ProtocolConfig protocolConfig = new ProtocolConfig("dubbo", port);
+        protocolConfig.setThreads(threads);
+        ServiceConfig<ProxyTest> serviceConfig = new ServiceConfig<>();
+        serviceConfig.setInterface(ProxyTest.class);
+        serviceConfig.setRef(new LatencyProvider(latency));
+        serviceConfig.setApplication(applicationConfig);
+        serviceConfig.setRegistry(new RegistryConfig(RegistryConfig.NO_AVAILABLE));
+        serviceConfig.setProtocol(protocolConfig);
+        serviceConfig.export();
+        return serviceConfig;
+    }
+
+    private static byte[] requestBody(int payload) {
+        char[] value = new char[payload];
+        Arrays.fill(value, 'x');
+        MethodConfig methodConfig = new MethodConfig();
+        methodConfig.setMethodName("test");
+        methodConfig.setParamTypes(new String[]{"java.lang.String"});
+        methodConfig.setParamValues(new Object[]{new String(value)});
+        return JsonUtils.writeValueAsString(methodConfig).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void awaitPort(int port) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 100);
+                return;
+            } catch (Exception e) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+        throw new IllegalStateException("proxy not started on port " + port);
+    }
+
+    public static class LatencyProvider implements ProxyTest {
+
+        private final LatencyDistribution latency;
+
+        public LatencyProvider(LatencyDistribution latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public String test(String a) {
+            long nanos = latency.sample();
+            if (nanos > 0) {
+                LockSupport.parkNanos(nanos);
+            }
+            return a + ".resp";
+        }
+    }
+
+    /**
+     * 各线程已分配的字节数和gc次数，线程按名字分成压测客户端、provider和代理三类
+     */
+    private static class ResourceSnapshot {
+        private final Map<Long, Long> allocated = new HashMap<>();
+        private final Map<Long, String> category = new HashMap<>();
+        private long gcCount;
+        private long gcTimeMillis;
+
+        static ResourceSnapshot take() {
+            ResourceSnapshot snapshot = new ResourceSnapshot();
+            com.sun.management.ThreadMXBean threadMXBean =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long[] ids = threadMXBean.getAllThreadIds();
+            long[] bytes = threadMXBean.getThreadAllocatedBytes(ids);
+            ThreadInfo[] infos = threadMXBean.getThreadInfo(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (infos[i] != null && bytes[i] >= 0) {
+                    snapshot.allocated.put(ids[i], bytes[i]);
+                    snapshot.category.put(ids[i], categoryOf(infos[i].getThreadName()));
+                }
+            }
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                snapshot.gcCount += Math.max(0, gc.getCollectionCount());
+                snapshot.gcTimeMillis += Math.max(0, gc.getCollectionTime());
+            }
+            return snapshot;
+        }
+
+        private static String categoryOf(String threadName) {
+            if (threadName.startsWith(LoadGenerator.THREAD_PREFIX)) {
+                return "client";
+            }
+            if (threadName.startsWith("DubboServerHandler") || threadName.startsWith("NettyServerWorker")
+                    || threadName.startsWith("NettyServerBoss")) {
+                return "provider";
+            }
+            return "proxy";
+        }
+
+        /**
+         * 期间退出的线程统计不到，新建的线程从0算
+         */
+        Map<String, Long> allocatedSince(ResourceSnapshot before) {
+            Map<String, Long> result = new LinkedHashMap<>();
+            result.put("proxy", 0L);
+            result.put("provider", 0L);
+            result.put("client", 0L);
+            for (Map.Entry<Long, Long> entry : allocated.entrySet()) {
+                long delta = entry.getValue() - before.allocated.getOrDefault(entry.getKey(), 0L);
+                result.merge(category.get(entry.getKey()), delta, Long::sum);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.apache.dubbo.proxy.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p> Description:
+ * <p>  直方图分桶和多线程汇总
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void recordsIntoUpperInclusiveBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(501));
+        histogram.record(TimeUnit.SECONDS.toNanos(11));
+        long[] snapshot = histogram.snapshot();
+        assertEquals(LatencyHistogram.BOUNDS_MS.length + 2, snapshot.length);
+        assertEquals(1, snapshot[0]);
+        assertEquals(1, snapshot[1]);
+        assertEquals(1, snapshot[LatencyHistogram.BOUNDS_MS.length]);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1001) + TimeUnit.SECONDS.toNanos(11), snapshot[snapshot.length - 1]);
+    }
+
+    @Test
+    public void sumsAcrossThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[16];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long[] snapshot = histogram.snapshot();
+        assertEquals(160000, snapshot[3]);
+        assertEquals(160000 * TimeUnit.MILLISECONDS.toNanos(3), snapshot[snapshot.length - 1]);
+    }
+}
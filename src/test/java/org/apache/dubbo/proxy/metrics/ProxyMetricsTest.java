@@ -0,0 +1,53 @@
+package org.apache.dubbo.proxy.metrics;
+
+import org.apache.dubbo.proxy.log.AccessLog;
+import org.apache.dubbo.proxy.service.AsyncCachedServicePool;
+import org.apache.dubbo.proxy.service.CircuitBreakerRegistry;
+import org.apache.dubbo.proxy.service.RateLimiter;
+import org.apache.dubbo.proxy.service.RequestCoalescer;
+import org.apache.dubbo.proxy.service.ResponseCache;
+import org.apache.dubbo.proxy.utils.ResultCode;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * <p> Description:
+ * <p>  只有provider执行过的方法单独统计，其余计入OTHER
+ */
+public class ProxyMetricsTest {
+
+    private static ProxyMetrics metrics() {
+        return new ProxyMetrics(mock(RequestCoalescer.class), mock(ResponseCache.class), mock(RateLimiter.class),
+                mock(CircuitBreakerRegistry.class), mock(AccessLog.class), mock(AsyncCachedServicePool.class));
+    }
+
+    @Test
+    public void unresolvedCallsShareOneSeries() {
+        ProxyMetrics metrics = metrics();
+        for (int i = 0; i < 100; i++) {
+            metrics.record("com.example.Svc" + i, "method" + i, 1000L, ResultCode.UNKNOWN);
+        }
+        String scrape = metrics.scrape();
+        assertFalse(scrape.contains("com.example.Svc"));
+        assertTrue(scrape.contains("dubbo_proxy_requests_total{interface=\"" + ProxyMetrics.OTHER
+                + "\",method=\"" + ProxyMetrics.OTHER + "\",result=\"unknown\"} 100"));
+    }
+
+    @Test
+    public void resolvedMethodKeepsItsFailures() {
+        ProxyMetrics metrics = metrics();
+        metrics.record("com.example.Svc", "sayHello", 1000L, ResultCode.TIMEOUT);
+        metrics.record("com.example.Svc", "sayHello", 1000L, ResultCode.OK);
+        metrics.record("com.example.Svc", "sayHello", 1000L, ResultCode.TIMEOUT);
+        metrics.record("com.example.Svc", "sayHello", ResultCode.SERIALIZATION);
+        String scrape = metrics.scrape();
+        String labels = "{interface=\"com.example.Svc\",method=\"sayHello\",result=";
+        assertTrue(scrape.contains("dubbo_proxy_requests_total" + labels + "\"ok\"} 1"));
+        assertTrue(scrape.contains("dubbo_proxy_requests_total" + labels + "\"timeout\"} 1"));
+        assertTrue(scrape.contains("dubbo_proxy_requests_total" + labels + "\"serialization\"} 1"));
+        assertTrue(scrape.contains("method=\"" + ProxyMetrics.OTHER + "\",result=\"timeout\"} 1"));
+    }
+}
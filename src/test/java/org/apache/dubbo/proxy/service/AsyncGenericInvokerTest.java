@@ -0,0 +1,124 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.proxy.entity.CircuitBreakerConfig;
+import org.apache.dubbo.proxy.entity.MethodConfig;
+import org.apache.dubbo.proxy.entity.MethodPolicy;
+import org.apache.dubbo.proxy.entity.ServiceConfig;
+import org.apache.dubbo.proxy.entity.ServiceDefinition;
+import org.apache.dubbo.proxy.log.AccessLog;
+import org.apache.dubbo.proxy.metadata.MethodSignatures;
+import org.apache.dubbo.proxy.metrics.ProxyMetrics;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p> Description:
+ * <p>  合并的请求只有发起上游调用的那一个经过熔断器
+ */
+public class AsyncGenericInvokerTest {
+
+    private final List<CompletableFuture<Object>> upstream = new ArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    private AsyncGenericInvoker invoker;
+    private ServiceConfig serviceConfig;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        AsyncServicePool pool = mock(AsyncServicePool.class);
+        when(pool.invokeAsync(any(), any())).thenAnswer(invocation -> {
+            calls.incrementAndGet();
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            upstream.add(future);
+            return future;
+        });
+        invoker = new AsyncGenericInvoker(pool, new RequestCoalescer(), registry,
+                mock(ProxyMetrics.class), mock(AccessLog.class), mock(MethodSignatures.class));
+
+        CircuitBreakerConfig breakerConfig = new CircuitBreakerConfig();
+        breakerConfig.setEnabled(true);
+        breakerConfig.setMinimumCalls(1);
+        breakerConfig.setWaitDuration(20L);
+        breakerConfig.setHalfOpenCalls(2);
+        MethodPolicy policy = new MethodPolicy();
+        policy.setCoalesce(true);
+        policy.setCircuitBreaker(breakerConfig);
+        serviceConfig = new ServiceConfig();
+        serviceConfig.setInterfaceName("org.apache.dubbo.proxy.ProxyTest");
+        serviceConfig.setPolicy(policy);
+    }
+
+    private ServiceDefinition request(String value) {
+        MethodConfig methodConfig = new MethodConfig();
+        methodConfig.setMethodName("test");
+        methodConfig.setParamTypes(new String[]{"java.lang.String"});
+        methodConfig.setParamValues(new Object[]{value});
+        ServiceDefinition serviceDefinition = new ServiceDefinition();
+        serviceDefinition.setServiceConfig(serviceConfig);
+        serviceDefinition.setMethodConfig(methodConfig);
+        return serviceDefinition;
+    }
+
+    private CircuitBreaker halfOpenBreaker() throws InterruptedException {
+        CircuitBreaker breaker = registry.breakerOf(serviceConfig, "test");
+        breaker.onComplete(breaker.tryAcquire(), TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+        Thread.sleep(30);
+        return breaker;
+    }
+
+    @Test
+    public void coalescedCallsTakeOneProbePermit() throws Exception {
+        CircuitBreaker breaker = halfOpenBreaker();
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(invoker.genericCall(request("a")));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+
+        upstream.get(0).complete("ok");
+        for (CompletableFuture<Object> future : futures) {
+            assertEquals("ok", future.get());
+        }
+        // 只有一次真正的探测成功，还需要一次
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+
+        CompletableFuture<Object> second = invoker.genericCall(request("b"));
+        assertEquals(2, calls.get());
+        upstream.get(1).complete("ok");
+        assertEquals("ok", second.get());
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void coalescedTimeoutIsCountedOnce() throws Exception {
+        CircuitBreakerConfig config = serviceConfig.getPolicy().getCircuitBreaker();
+        config.setMinimumCalls(3);
+        CircuitBreaker breaker = registry.breakerOf(serviceConfig, "test");
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(invoker.genericCall(request("a")));
+        }
+        upstream.get(0).completeExceptionally(new TimeoutException("timeout"));
+        for (CompletableFuture<Object> future : futures) {
+            assertTrue(future.isCompletedExceptionally());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,116 @@
+package org.apache.dubbo.proxy.service;
+
+import org.apache.dubbo.proxy.entity.CircuitBreakerConfig;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * <p> Description:
+ * <p>  熔断器状态切换，半开状态只统计探测请求
+ */
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static CircuitBreaker breaker() {
+        CircuitBreakerConfig config = new CircuitBreakerConfig();
+        config.setFailureRateThreshold(50);
+        config.setMinimumCalls(4);
+        config.setWaitDuration(20L);
+        config.setHalfOpenCalls(2);
+        return new CircuitBreaker("test", config);
+    }
+
+    private static void open(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onComplete(breaker.tryAcquire(), FAST, true);
+        }
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+    }
+
+    private static void halfOpen(CircuitBreaker breaker, int expectedPermit) throws InterruptedException {
+        Thread.sleep(30);
+        assertEquals(expectedPermit, breaker.tryAcquire());
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = breaker();
+        breaker.onComplete(breaker.tryAcquire(), FAST, false);
+        breaker.onComplete(breaker.tryAcquire(), FAST, false);
+        breaker.onComplete(breaker.tryAcquire(), FAST, true);
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+        breaker.onComplete(breaker.tryAcquire(), FAST, true);
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    public void probesCloseTheBreaker() throws InterruptedException {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+        halfOpen(breaker, CircuitBreaker.HALF_OPEN);
+        int second = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.HALF_OPEN, second);
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.onComplete(CircuitBreaker.HALF_OPEN, FAST, false);
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+        breaker.onComplete(second, FAST, false);
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+        halfOpen(breaker, CircuitBreaker.HALF_OPEN);
+        breaker.onComplete(CircuitBreaker.HALF_OPEN, FAST, true);
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void closedPermitCompletingWhileHalfOpenIsIgnored() throws InterruptedException {
+        CircuitBreaker breaker = breaker();
+        // 熔断前放行的慢请求
+        int stale = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.CLOSED, stale);
+        open(breaker);
+        halfOpen(breaker, CircuitBreaker.HALF_OPEN);
+
+        breaker.onComplete(stale, FAST, true);
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+        breaker.onComplete(stale, FAST, false);
+        breaker.onComplete(stale, FAST, false);
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void releaseReturnsProbePermit() throws InterruptedException {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+        halfOpen(breaker, CircuitBreaker.HALF_OPEN);
+        int second = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+        breaker.release(second);
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.tryAcquire());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+    }
+
+    @Test
+    public void releasedCallsAreNotCounted() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 10; i++) {
+            breaker.release(breaker.tryAcquire());
+        }
+        breaker.onComplete(breaker.tryAcquire(), FAST, true);
+        breaker.onComplete(breaker.tryAcquire(), FAST, true);
+        breaker.onComplete(breaker.tryAcquire(), FAST, true);
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,42 @@
+package org.apache.dubbo.proxy.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p> Description:
+ * <p>  计数上限和定期减半
+ */
+public class FrequencySketchTest {
+
+    @Test
+    public void countsUpToFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        int key = "service".hashCode();
+        assertEquals(0, sketch.frequency(key));
+        for (int i = 1; i <= 15; i++) {
+            sketch.increment(key);
+            assertEquals(i, sketch.frequency(key));
+        }
+        sketch.increment(key);
+        assertEquals(15, sketch.frequency(key));
+    }
+
+    @Test
+    public void halvesAllCountersAfterSampleSize() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        int key = "hot".hashCode();
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(key);
+        }
+        // 样本数是160，加上hot自己的15次，不到150个不同的key之后就会减半
+        int others = 0;
+        while (sketch.frequency(key) == 15 && others < 1000) {
+            sketch.increment(others++);
+        }
+        assertTrue(String.valueOf(others), others <= 150);
+        assertEquals(7, sketch.frequency(key));
+    }
+}
@@ -0,0 +1,106 @@
+package org.apache.dubbo.proxy.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * <p> Description:
+ * <p>  引用计数销毁、按频率淘汰和访问过期
+ */
+public class TinyLfuCacheTest {
+
+    private final List<String> destroyed = new ArrayList<>();
+
+    private TinyLfuCache<String, String> cache(int maximumSize) {
+        return new TinyLfuCache<>(maximumSize, 1, TimeUnit.HOURS, destroyed::add);
+    }
+
+    @Test
+    public void leasedEntryIsNotDestroyedUntilReleased() {
+        TinyLfuCache<String, String> cache = cache(10);
+        cache.put("a", "a1");
+        TinyLfuCache.Node<String, String> leased = cache.acquire("a");
+        assertNotNull(leased);
+
+        // 替换和清空都只释放缓存自己的引用
+        cache.put("a", "a2");
+        cache.invalidateAll();
+        assertTrue(destroyed.toString(), destroyed.contains("a2"));
+        assertFalse(destroyed.contains("a1"));
+        assertEquals("a1", leased.getValue());
+
+        cache.release(leased);
+        assertEquals(1, destroyed.stream().filter("a1"::equals).count());
+        assertFalse(cache.retain(leased));
+    }
+
+    @Test
+    public void evictedEntryWaitsForLastRelease() {
+        TinyLfuCache<String, String> cache = cache(2);
+        cache.put("a", "a");
+        TinyLfuCache.Node<String, String> first = cache.acquire("a");
+        TinyLfuCache.Node<String, String> second = cache.acquire("a");
+        // 比a更常用的key才能把a挤掉
+        for (int i = 0; i < 10; i++) {
+            for (int miss = 0; miss < 5; miss++) {
+                cache.acquire("k" + i);
+            }
+            cache.put("k" + i, "k" + i);
+        }
+        assertNull(cache.acquire("a"));
+        assertFalse(destroyed.contains("a"));
+
+        cache.release(first);
+        assertFalse(destroyed.contains("a"));
+        cache.release(second);
+        assertTrue(destroyed.contains("a"));
+    }
+
+    @Test
+    public void frequentEntriesSurviveOneHitWonders() {
+        TinyLfuCache<String, String> cache = cache(10);
+        for (int i = 0; i < 5; i++) {
+            cache.put("hot" + i, "hot" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 5; i++) {
+                cache.release(cache.acquire("hot" + i));
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            String key = "cold" + i;
+            assertNull(cache.acquire(key));
+            cache.put(key, key);
+        }
+        for (int i = 0; i < 5; i++) {
+            TinyLfuCache.Node<String, String> node = cache.acquire("hot" + i);
+            assertNotNull("hot" + i, node);
+            cache.release(node);
+        }
+        assertTrue(cache.size() <= 10);
+        assertEquals(cache.getEvictions(), destroyed.size());
+        assertTrue(destroyed.stream().allMatch(v -> v.startsWith("cold")));
+    }
+
+    @Test
+    public void expiredEntryIsAMiss() throws InterruptedException {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, 5, TimeUnit.MILLISECONDS, destroyed::add);
+        TinyLfuCache.Node<String, String> node = cache.put("a", "a");
+        assertSame(node, cache.acquire("a"));
+        cache.release(node);
+        Thread.sleep(20);
+        assertNull(cache.acquire("a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -0,0 +1,190 @@
+package org.apache.dubbo.rpc.cluster.support;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AppResponse;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.cluster.Directory;
+import org.apache.dubbo.rpc.cluster.LoadBalance;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p> Description:
+ * <p>  对冲请求：超过延迟发给另一个invoker，先成功的生效并取消另一个，都失败后按重试次数重试
+ */
+public class FailoverClusterInvokerTest {
+
+    private static final long HEDGE_DELAY = 30;
+
+    /**
+     * 总是选第一个，已经调用过的由AbstractClusterInvoker重新选择
+     */
+    private static final LoadBalance FIRST = new LoadBalance() {
+        @Override
+        public <T> Invoker<T> select(List<Invoker<T>> invokers, URL url, Invocation invocation) {
+            return invokers.get(0);
+        }
+    };
+
+    private final MockInvoker first = new MockInvoker("10.0.0.1");
+    private final MockInvoker second = new MockInvoker("10.0.0.2");
+    private final List<Invoker<Greeting>> invokers = Arrays.asList(first.invoker, second.invoker);
+
+    @After
+    public void tearDown() {
+        RpcContext.removeContext();
+    }
+
+    @SuppressWarnings("unchecked")
+    private AsyncRpcResult invoke(int retries) {
+        URL url = URL.valueOf("dubbo://127.0.0.1/" + Greeting.class.getName()
+                + "?retries=" + retries + "&hedge-budget=100&sayHello.hedge-delay=" + HEDGE_DELAY);
+        Directory<Greeting> directory = mock(Directory.class);
+        when(directory.getUrl()).thenReturn(url);
+        when(directory.getConsumerUrl()).thenReturn(url);
+        when(directory.getInterface()).thenReturn(Greeting.class);
+        when(directory.list(any())).thenReturn(invokers);
+        RpcInvocation invocation = new RpcInvocation("sayHello", Greeting.class.getName(), "",
+                new Class<?>[]{String.class}, new Object[]{"world"});
+        Result result = new FailoverClusterInvoker<>(directory).doInvoke(invocation, invokers, FIRST);
+        return (AsyncRpcResult) result;
+    }
+
+    @Test
+    public void hedgesToAnotherInvokerAfterDelay() {
+        long start = System.nanoTime();
+        invoke(0);
+        assertEquals(1, first.results.size());
+        assertTrue(second.results.isEmpty());
+
+        await(() -> !second.results.isEmpty());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(HEDGE_DELAY));
+        assertEquals(1, first.results.size());
+    }
+
+    @Test
+    public void firstSuccessWinsAndLoserIsCancelled() throws Exception {
+        AsyncRpcResult result = invoke(0);
+        await(() -> !second.results.isEmpty());
+
+        second.futures.get(0).complete(new AppResponse("hedge"));
+        assertEquals("hedge", value(result));
+        // 调用方先拿到结果，之后再取消输掉的调用
+        await(() -> first.results.get(0).getResponseFuture().isCancelled());
+        assertFalse(second.results.get(0).getResponseFuture().isCancelled());
+    }
+
+    @Test
+    public void noHedgeOnceFirstAttemptCompleted() throws Exception {
+        AsyncRpcResult result = invoke(0);
+        first.futures.get(0).complete(new AppResponse("first"));
+        assertEquals("first", value(result));
+
+        Thread.sleep(HEDGE_DELAY * 3);
+        assertTrue(second.results.isEmpty());
+    }
+
+    @Test
+    public void bothFailingFallsThroughToRetry() throws Exception {
+        AsyncRpcResult result = invoke(1);
+        await(() -> !second.results.isEmpty());
+
+        first.futures.get(0).completeExceptionally(new RpcException(RpcException.TIMEOUT_EXCEPTION, "first timeout"));
+        second.futures.get(0).completeExceptionally(new RpcException(RpcException.TIMEOUT_EXCEPTION, "hedge timeout"));
+        // 对冲不占用重试次数，retries=1还能再重试一次
+        await(() -> first.results.size() + second.results.size() == 3);
+        assertFalse(result.getResponseFuture().isDone());
+
+        MockInvoker retried = first.results.size() == 2 ? first : second;
+        retried.futures.get(1).complete(new AppResponse("retry"));
+        assertEquals("retry", value(result));
+    }
+
+    @Test
+    public void bizExceptionCompletesCallAndCancelsOtherAttempt() throws Exception {
+        AsyncRpcResult result = invoke(1);
+        await(() -> !second.results.isEmpty());
+
+        RpcException biz = new RpcException(RpcException.BIZ_EXCEPTION, "biz");
+        first.futures.get(0).completeExceptionally(biz);
+        try {
+            value(result);
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(biz, e.getCause());
+        }
+        await(() -> second.results.get(0).getResponseFuture().isCancelled());
+        assertEquals(1, first.results.size());
+    }
+
+    private static Object value(AsyncRpcResult result) throws Exception {
+        return result.getResponseFuture().get(1, TimeUnit.SECONDS).getValue();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met in 1s");
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public interface Greeting {
+        String sayHello(String name);
+    }
+
+    /**
+     * 每次调用返回一个由测试控制完成的AsyncRpcResult
+     */
+    private static class MockInvoker {
+        final Invoker<Greeting> invoker;
+        final List<AsyncRpcResult> results = Collections.synchronizedList(new ArrayList<>());
+        final List<CompletableFuture<AppResponse>> futures = Collections.synchronizedList(new ArrayList<>());
+
+        @SuppressWarnings("unchecked")
+        MockInvoker(String host) {
+            invoker = mock(Invoker.class);
+            when(invoker.getUrl()).thenReturn(URL.valueOf("dubbo://" + host + ":20880/" + Greeting.class.getName()));
+            when(invoker.getInterface()).thenReturn(Greeting.class);
+            when(invoker.isAvailable()).thenReturn(true);
+            when(invoker.invoke(any())).thenAnswer(call -> {
+                CompletableFuture<AppResponse> future = new CompletableFuture<>();
+                AsyncRpcResult result = new AsyncRpcResult(future, call.getArgument(0));
+                futures.add(future);
+                results.add(result);
+                return result;
+            });
+        }
+    }
+}